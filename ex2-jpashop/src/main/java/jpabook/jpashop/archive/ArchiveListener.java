@@ -0,0 +1,16 @@
+package jpabook.jpashop.archive;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * {@link OrderArchiver} 가 커밋한 chunk 를 받는다. archive 를 호출한 스레드에서 chunk 를 커밋할 때마다 호출된다.
+ */
+@FunctionalInterface
+public interface ArchiveListener {
+
+    /**
+     * @param orderIds 이 chunk 에서 옮긴 주문 id. 주문상품과 배송은 주문을 따라 옮겨진다.
+     */
+    void chunkArchived(YearMonth month, List<Long> orderIds);
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.archive;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ArchiveResult {
+
+    private final YearMonth month;
+    private final long archivedOrders;
+    private final int chunks;
+    private final long elapsedNanos;
+
+    @Override
+    public String toString() {
+        return "ArchiveResult{" +
+            "month=" + month +
+            ", archivedOrders=" + archivedOrders +
+            ", chunks=" + chunks +
+            ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+            '}';
+    }
+}
@@ -0,0 +1,239 @@
+package jpabook.jpashop.archive;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import jpabook.jpashop.domain.ArchivedDelivery;
+import jpabook.jpashop.domain.ArchivedOrder;
+import jpabook.jpashop.domain.ArchivedOrderItem;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderArchiveMonth;
+import jpabook.jpashop.domain.OrderItem;
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 마감된 달의 주문을 ORDERS 에서 ORDERS_ARCHIVE 로 옮긴다. (H2 에는 테이블 파티션이 없다.)
+ * <p>
+ * 최근 retentionMonths 달은 ORDERS 에 남기고, 그보다 오래된 달을 오래된 것부터 한 달씩 옮긴다.
+ * 주문, 주문상품, 배송은 요약하지 않고 ORDERS_ARCHIVE, ORDER_ITEM_ARCHIVE, DELIVERY_ARCHIVE 로 컬럼 그대로 옮긴다.
+ * 옮긴 주문도 {@code em.find(Order.class, id)} 와 지연 로딩으로 읽을 수 있다. (Order, OrderItem, Delivery 의 @Loader)
+ * 마감된 달의 주문은 바꾸지 않는다. 보관된 주문을 수정하면 ORDERS 에 행이 없어서 OptimisticLockException 이 난다.
+ * 한 달은 chunkSize 건씩 나눠서 트랜잭션마다 옮기므로, 어느 커밋 시점에도 주문은 두 테이블 중 한 곳에만 있다.
+ * 옮기기 전에 그 달을 ORDERS_ARCHIVE_MONTH 에 먼저 기록해서, OrderRangeQueries 가 옮기는 중인 달은 두 테이블을 모두 읽게 한다.
+ * <p>
+ * 네이티브 SQL 로 옮기므로 flush 를 거치는 리스너는 알 수 없다. chunk 를 커밋할 때마다
+ * {@link #addListener(ArchiveListener)} 로 등록한 리스너에 옮긴 주문 id 를 한 번에 알린다.
+ * <p>
+ * {@link #start(long, TimeUnit)} 로 백그라운드에서 주기적으로 실행한다.
+ */
+public class OrderArchiver implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final String SELECT_CHUNK_SQL = "select ORDER_ID, DELIVERY_ID from ORDERS"
+        + " where orderDate >= :from and orderDate < :to order by orderDate";
+    // 요약하지 않고 컬럼 그대로 옮긴다.
+    private static final String COPY_ORDERS_SQL = "insert into ORDERS_ARCHIVE"
+        + " (ORDER_ID, MEMBER_ID, DELIVERY_ID, orderDate, status, version)"
+        + " select ORDER_ID, MEMBER_ID, DELIVERY_ID, orderDate, status, version from ORDERS where ORDER_ID in (:ids)";
+    private static final String COPY_ORDER_ITEMS_SQL = "insert into ORDER_ITEM_ARCHIVE"
+        + " (ORDER_ITEM_ID, ORDER_ID, ITEM_ID, orderPrice, count)"
+        + " select ORDER_ITEM_ID, ORDER_ID, ITEM_ID, orderPrice, count from OrderItem where ORDER_ID in (:ids)";
+    private static final String COPY_DELIVERIES_SQL = "insert into DELIVERY_ARCHIVE"
+        + " (id, city, street, zipcode, deliveryStatus)"
+        + " select id, city, street, zipcode, deliveryStatus from Delivery where id in (:ids)";
+
+    private final EntityManagerFactory emf;
+    private final Clock clock;
+    private final int retentionMonths;
+    private final int chunkSize;
+    private final List<ArchiveListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public OrderArchiver(EntityManagerFactory emf, Clock clock, int retentionMonths) {
+        this(emf, clock, retentionMonths, DEFAULT_CHUNK_SIZE);
+    }
+
+    public OrderArchiver(EntityManagerFactory emf, Clock clock, int retentionMonths, int chunkSize) {
+        if (retentionMonths < 1) {
+            throw new IllegalArgumentException("retentionMonths must be positive: " + retentionMonths);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.emf = emf;
+        this.clock = clock;
+        this.retentionMonths = retentionMonths;
+        this.chunkSize = chunkSize;
+    }
+
+    public void addListener(ArchiveListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 이 달보다 이전 달은 마감된 달이다.
+     */
+    public YearMonth getCutoff() {
+        return YearMonth.now(clock).minusMonths(retentionMonths);
+    }
+
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("archiver already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                for (ArchiveResult result : archiveClosedMonths()) {
+                    log.info("{}", result);
+                }
+            } catch (RuntimeException e) {
+                // 다음 주기에 남은 주문부터 다시 옮긴다.
+                log.warn("order archiving failed", e);
+            }
+        }, 0, period, unit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public List<ArchiveResult> archiveClosedMonths() {
+        YearMonth cutoff = getCutoff();
+        List<ArchiveResult> results = new ArrayList<>();
+        YearMonth month;
+        while ((month = findOldestMonth()) != null && month.isBefore(cutoff)) {
+            results.add(archiveMonth(month));
+        }
+        return results;
+    }
+
+    public ArchiveResult archiveMonth(YearMonth month) {
+        if (!month.isBefore(getCutoff())) {
+            throw new IllegalArgumentException("month is not closed yet: " + month);
+        }
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        int key = OrderArchiveMonth.key(month);
+
+        long start = System.nanoTime();
+        inTransaction(em -> {
+            if (em.find(OrderArchiveMonth.class, key) == null) {
+                OrderArchiveMonth archiveMonth = new OrderArchiveMonth();
+                archiveMonth.setMonth(key);
+                archiveMonth.setArchivedAt(LocalDateTime.now(clock));
+                em.persist(archiveMonth);
+            }
+            return null;
+        });
+
+        long archived = 0;
+        int chunks = 0;
+        List<Long> orderIds;
+        while (!(orderIds = inTransaction(em -> moveChunk(em, key, from, to))).isEmpty()) {
+            for (ArchiveListener listener : listeners) {
+                listener.chunkArchived(month, orderIds);
+            }
+            archived += orderIds.size();
+            chunks++;
+        }
+        return new ArchiveResult(month, archived, chunks, System.nanoTime() - start);
+    }
+
+    private YearMonth findOldestMonth() {
+        LocalDateTime oldest = inTransaction(em -> em.createQuery(
+                "select min(o.orderDate) from Order o", LocalDateTime.class)
+            .getSingleResult());
+        return oldest == null ? null : YearMonth.from(oldest);
+    }
+
+    private List<Long> moveChunk(EntityManager em, int key, LocalDateTime from, LocalDateTime to) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(SELECT_CHUNK_SQL)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setMaxResults(chunkSize)
+            .getResultList();
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        List<Long> deliveryIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            orderIds.add(((Number) row[0]).longValue());
+            if (row[1] != null) {
+                deliveryIds.add(((Number) row[1]).longValue());
+            }
+        }
+
+        executeUpdate(em, COPY_ORDERS_SQL, "ids", orderIds, ArchivedOrder.class);
+        executeUpdate(em, COPY_ORDER_ITEMS_SQL, "ids", orderIds, ArchivedOrderItem.class);
+        executeUpdate(em, "delete from OrderItem where ORDER_ID in (:ids)", "ids", orderIds, OrderItem.class);
+        executeUpdate(em, "delete from ORDERS where ORDER_ID in (:ids)", "ids", orderIds, Order.class);
+        if (!deliveryIds.isEmpty()) {
+            executeUpdate(em, COPY_DELIVERIES_SQL, "ids", deliveryIds, ArchivedDelivery.class);
+            executeUpdate(em, "delete from Delivery where id in (:ids)", "ids", deliveryIds, Delivery.class);
+        }
+
+        OrderArchiveMonth archiveMonth = em.find(OrderArchiveMonth.class, key);
+        archiveMonth.setOrderCount(archiveMonth.getOrderCount() + orderIds.size());
+        return Collections.unmodifiableList(orderIds);
+    }
+
+    /**
+     * 네이티브 벌크 연산은 기본으로 2차 캐시 리전 전체를 비우므로, 실제로 바뀌는 엔티티만 동기화 대상으로 지정한다.
+     */
+    private void executeUpdate(EntityManager em, String sql, String name, List<Long> ids, Class<?> entityClass) {
+        em.createNativeQuery(sql)
+            .setParameter(name, ids)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(entityClass)
+            .executeUpdate();
+    }
+
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.audit;
+
+import java.time.Clock;
+import java.util.function.Supplier;
+
+/**
+ * AuditInterceptor 가 createdBy, lastModifiedBy 에 쓰는 사용자와 시각을 읽는 시계.
+ * 사용자는 스레드마다 지정하고, 트랜잭션이 시작된 뒤 처음 저장/변경할 때 읽은 값을 그 트랜잭션 끝까지 쓴다.
+ *
+ * <pre>{@code
+ * AuditContext.runAs("admin", () -> service.placeOrder(...));
+ * }</pre>
+ */
+public final class AuditContext {
+
+    public static final String SYSTEM = "system";
+
+    private static final ThreadLocal<String> PRINCIPAL = new ThreadLocal<>();
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    private AuditContext() {
+    }
+
+    public static String getPrincipal() {
+        String principal = PRINCIPAL.get();
+        return principal == null ? SYSTEM : principal;
+    }
+
+    public static void setPrincipal(String principal) {
+        PRINCIPAL.set(principal);
+    }
+
+    public static void clearPrincipal() {
+        PRINCIPAL.remove();
+    }
+
+    public static <T> T runAs(String principal, Supplier<T> work) {
+        String previous = PRINCIPAL.get();
+        PRINCIPAL.set(principal);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRINCIPAL.remove();
+            } else {
+                PRINCIPAL.set(previous);
+            }
+        }
+    }
+
+    public static void runAs(String principal, Runnable work) {
+        runAs(principal, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static Clock getClock() {
+        return clock;
+    }
+
+    // 테스트, 벤치마크에서 고정된 시계를 쓸 때
+    public static void setClock(Clock clock) {
+        AuditContext.clock = clock;
+    }
+
+}
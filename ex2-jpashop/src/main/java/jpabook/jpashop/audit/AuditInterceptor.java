@@ -0,0 +1,116 @@
+package jpabook.jpashop.audit;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import jpabook.jpashop.domain.BaseEntity;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+
+/**
+ * BaseEntity 의 createdBy, createdDate, lastModifiedBy, lastModifiedDate 를 채운다.
+ * <p>
+ * hibernate.session_factory.session_scoped_interceptor 로 등록해서 세션마다 인스턴스가 만들어진다.
+ * 엔티티에 setter 를 호출하지 않고 하이버네이트가 넘겨준 상태 배열의 값을 바꾸며,
+ * 감사 속성의 위치는 엔티티 클래스마다 한 번만 찾는다.
+ * 시각과 사용자는 트랜잭션마다 처음 한 번 읽어서, 한 트랜잭션에서 저장/변경한 엔티티는 같은 값을 갖는다.
+ * <ul>
+ *   <li>저장(persist): 비어 있는 created*, 그리고 lastModified*</li>
+ *   <li>flush: 변경 감지에서 실제로 바뀐 엔티티만 lastModified*</li>
+ * </ul>
+ * JPQL 벌크 연산, JDBC 로 직접 실행하는 UPDATE 는 flush 를 거치지 않으므로 채워지지 않는다.
+ */
+public class AuditInterceptor extends EmptyInterceptor {
+
+    private static final ConcurrentMap<Class<?>, AuditProperties> PROPERTIES = new ConcurrentHashMap<>();
+
+    private LocalDateTime now;
+    private String principal;
+
+    @Override
+    public void afterTransactionBegin(Transaction tx) {
+        now = null;
+        principal = null;
+    }
+
+    @Override
+    public void afterTransactionCompletion(Transaction tx) {
+        now = null;
+        principal = null;
+    }
+
+    @Override
+    public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        if (!(entity instanceof BaseEntity)) {
+            return false;
+        }
+        AuditProperties properties = properties(entity, propertyNames);
+        snapshot();
+        if (state[properties.createdBy] == null) {
+            state[properties.createdBy] = principal;
+        }
+        if (state[properties.createdDate] == null) {
+            state[properties.createdDate] = now;
+        }
+        state[properties.lastModifiedBy] = principal;
+        state[properties.lastModifiedDate] = now;
+        return true;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+        String[] propertyNames, Type[] types) {
+        if (!(entity instanceof BaseEntity)) {
+            return false;
+        }
+        AuditProperties properties = properties(entity, propertyNames);
+        snapshot();
+        currentState[properties.lastModifiedBy] = principal;
+        currentState[properties.lastModifiedDate] = now;
+        return true;
+    }
+
+    private void snapshot() {
+        if (now == null) {
+            now = LocalDateTime.now(AuditContext.getClock());
+            principal = AuditContext.getPrincipal();
+        }
+    }
+
+    private static AuditProperties properties(Object entity, String[] propertyNames) {
+        AuditProperties properties = PROPERTIES.get(entity.getClass());
+        if (properties == null) {
+            properties = PROPERTIES.computeIfAbsent(entity.getClass(), type -> new AuditProperties(propertyNames));
+        }
+        return properties;
+    }
+
+    private static final class AuditProperties {
+
+        private final int createdBy;
+        private final int createdDate;
+        private final int lastModifiedBy;
+        private final int lastModifiedDate;
+
+        private AuditProperties(String[] propertyNames) {
+            List<String> names = Arrays.asList(propertyNames);
+            createdBy = indexOf(names, "createdBy");
+            createdDate = indexOf(names, "createdDate");
+            lastModifiedBy = indexOf(names, "lastModifiedBy");
+            lastModifiedDate = indexOf(names, "lastModifiedDate");
+        }
+
+        private static int indexOf(List<String> names, String name) {
+            int index = names.indexOf(name);
+            if (index < 0) {
+                throw new IllegalStateException("audit property not mapped: " + name + " in " + names);
+            }
+            return index;
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package jpabook.jpashop.bulk;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * 벌크 연산(executeUpdate)을 식별자 범위로 나눠서 실행하고, 영속성 컨텍스트와 2차 캐시를 DB 와 맞춘다.
+ * <p>
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않고 바로 DB 에 반영되므로, 이미 조회한 엔티티는 예전 값을 가진다.
+ * 실행 전에 영속성 컨텍스트를 flush 하고, 수정 연산 후에는 DB 의 버전이 바뀐 영속 엔티티만 refresh 하고,
+ * 삭제 연산 후에는 DB 에서 사라진 영속 엔티티와 그 엔티티를 컬렉션으로 들고 있는 엔티티만 detach 한다.
+ * 2차 캐시 리전은 벌크 연산 시 하이버네이트가 비우지만, 명시적으로 한 번 더 비운다.
+ * 수정 연산은 @Version 도 올려서, 그 전에 엔티티를 읽은 트랜잭션이 덮어쓰지 못하게 한다.
+ * (update versioned 는 JOINED 상속의 Item 에서 잘못된 SQL 을 만든다.)
+ * <p>
+ * 트랜잭션이 이미 시작되어 있으면 그 안에서 실행하고, 없으면 chunk 마다 트랜잭션을 커밋해서
+ * 한 번에 잡는 락과 undo 크기를 chunk 크기로 제한한다.
+ */
+public class BulkOperations {
+
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    // 영속 엔티티의 식별자를 IN 절로 조회할 때 한 번에 넘기는 수
+    private static final int MAX_IN_PARAMETERS = 1000;
+
+    private final EntityManager em;
+    private final int chunkSize;
+
+    public BulkOperations(EntityManager em) {
+        this(em, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkOperations(EntityManager em, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.chunkSize = chunkSize;
+    }
+
+    // 상품 가격을 percent 만큼 올린다. (음수면 인하)
+    public BulkResult repriceItems(int percent) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("percent", percent);
+
+        BulkResult result = execute(Item.class, "update Item i"
+            + " set i.price = i.price + i.price * :percent / 100, i.version = i.version + 1"
+            + " where i.id between :fromId and :toId", parameters);
+
+        refreshChanged(Item.class);
+        return result;
+    }
+
+    // orderDate 이전의 주문 상태인 주문을 취소 상태로 닫는다.
+    public BulkResult cancelOrdersBefore(LocalDateTime orderDate) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("orderDate", orderDate);
+        parameters.put("ordered", OrderStatus.ORDER);
+        parameters.put("canceled", OrderStatus.CANCEL);
+
+        BulkResult result = execute(Order.class, "update Order o"
+            + " set o.status = :canceled, o.version = o.version + 1"
+            + " where o.orderDate < :orderDate and o.status = :ordered"
+            + " and o.id between :fromId and :toId", parameters);
+
+        refreshChanged(Order.class);
+        return result;
+    }
+
+    // 해당 상태인 주문의 주문상품을 삭제한다.
+    public BulkResult purgeOrderItems(OrderStatus status) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("status", status);
+
+        BulkResult result = execute(OrderItem.class, "delete from OrderItem oi"
+            + " where oi.order.id in (select o.id from Order o where o.status = :status)"
+            + " and oi.id between :fromId and :toId", parameters);
+
+        // 삭제된 주문상품과, 그 주문상품을 컬렉션으로 들고 있는 주문을 영속성 컨텍스트에서 내보낸다.
+        for (Object deleted : findDeleted(OrderItem.class)) {
+            OrderItem orderItem = (OrderItem) deleted;
+            if (orderItem.getOrder() != null && em.contains(orderItem.getOrder())) {
+                em.detach(orderItem.getOrder());
+            }
+            if (em.contains(orderItem)) {
+                em.detach(orderItem);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param jpql :fromId, :toId 파라미터로 식별자 범위를 제한하는 update/delete 문
+     */
+    public BulkResult execute(Class<?> entityClass, String jpql, Map<String, Object> parameters) {
+        long start = System.nanoTime();
+
+        // 벌크 연산 뒤의 refresh 가 flush 되지 않은 변경을 덮어쓰지 않도록 먼저 반영한다.
+        if (em.getTransaction().isActive()) {
+            em.flush();
+        }
+
+        Object[] range = (Object[]) em.createQuery(
+                "select min(e.id), max(e.id) from " + entityClass.getSimpleName() + " e")
+            .getSingleResult();
+        if (range[0] == null) {
+            return new BulkResult(0, 0, System.nanoTime() - start);
+        }
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+
+        long affectedRows = 0;
+        int chunks = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long toId = Math.min(fromId + chunkSize - 1, maxId);
+            affectedRows += executeChunk(jpql, parameters, fromId, toId);
+            chunks++;
+        }
+
+        em.getEntityManagerFactory().getCache().evict(entityClass);
+        return new BulkResult(affectedRows, chunks, System.nanoTime() - start);
+    }
+
+    private int executeChunk(String jpql, Map<String, Object> parameters, long fromId, long toId) {
+        Query query = em.createQuery(jpql)
+            .setParameter("fromId", fromId)
+            .setParameter("toId", toId);
+        parameters.forEach(query::setParameter);
+
+        EntityTransaction tx = em.getTransaction();
+        if (tx.isActive()) {
+            return query.executeUpdate();
+        }
+
+        tx.begin();
+        try {
+            int rows = query.executeUpdate();
+            tx.commit();
+            return rows;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        }
+    }
+
+    // DB 의 @Version 이 영속 엔티티의 버전과 다른(벌크 연산이 수정한) 엔티티만 다시 읽는다.
+    private void refreshChanged(Class<?> entityClass) {
+        List<Object> managed = findManaged(entityClass);
+        if (managed.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getEntityPersister(null, managed.get(0));
+        if (!persister.isVersioned()) {
+            throw new IllegalArgumentException(entityClass.getName() + " has no @Version");
+        }
+        String version = persister.getPropertyNames()[persister.getVersionProperty()];
+
+        Map<Object, Object> versions = new HashMap<>();
+        for (List<Object> ids : idChunks(session, managed)) {
+            List<?> rows = em.createQuery("select e.id, e." + version + " from "
+                    + entityClass.getSimpleName() + " e where e.id in :ids")
+                .setParameter("ids", ids)
+                .getResultList();
+            for (Object row : rows) {
+                versions.put(((Object[]) row)[0], ((Object[]) row)[1]);
+            }
+        }
+
+        for (Object entity : managed) {
+            Object id = session.getContextEntityIdentifier(entity);
+            Object current = session.getEntityPersister(null, entity).getVersion(entity);
+            if (versions.containsKey(id) && !versions.get(id).equals(current)) {
+                em.refresh(entity);
+            }
+        }
+    }
+
+    // 영속 엔티티 중 DB 에서 삭제된 엔티티
+    private List<Object> findDeleted(Class<?> entityClass) {
+        List<Object> managed = findManaged(entityClass);
+        if (managed.isEmpty()) {
+            return managed;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+
+        Set<Object> existing = new HashSet<>();
+        for (List<Object> ids : idChunks(session, managed)) {
+            existing.addAll(em.createQuery("select e.id from " + entityClass.getSimpleName()
+                    + " e where e.id in :ids")
+                .setParameter("ids", ids)
+                .getResultList());
+        }
+
+        List<Object> deleted = new ArrayList<>();
+        for (Object entity : managed) {
+            if (!existing.contains(session.getContextEntityIdentifier(entity))) {
+                deleted.add(entity);
+            }
+        }
+        return deleted;
+    }
+
+    private static List<List<Object>> idChunks(SessionImplementor session, List<Object> entities) {
+        List<List<Object>> chunks = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>();
+        for (Object entity : entities) {
+            chunk.add(session.getContextEntityIdentifier(entity));
+            if (chunk.size() == MAX_IN_PARAMETERS) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private List<Object> findManaged(Class<?> entityClass) {
+        Map<EntityKey, Object> entities = em.unwrap(SessionImplementor.class)
+            .getPersistenceContext()
+            .getEntitiesByKey();
+
+        List<Object> managed = new ArrayList<>();
+        for (Object entity : entities.values()) {
+            if (entityClass.isInstance(entity)) {
+                managed.add(entity);
+            }
+        }
+        return managed;
+    }
+
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.bulk;
+
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BulkResult {
+
+    private final long affectedRows;
+    private final int chunks;
+    private final long elapsedNanos;
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return affectedRows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+            "affectedRows=" + affectedRows +
+            ", chunks=" + chunks +
+            ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+            ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+            '}';
+    }
+}
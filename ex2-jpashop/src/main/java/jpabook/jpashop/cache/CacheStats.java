@@ -0,0 +1,32 @@
+package jpabook.jpashop.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+            "region='" + region + '\'' +
+            ", hits=" + hits +
+            ", misses=" + misses +
+            ", puts=" + puts +
+            ", evictions=" + evictions +
+            ", hitRate=" + String.format("%.3f", getHitRate()) +
+            '}';
+    }
+}
@@ -0,0 +1,71 @@
+package jpabook.jpashop.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+
+/**
+ * 상품 카탈로그 2차 캐시 리전의 hit/miss/eviction 카운터.
+ * <p>
+ * ehcache.xml 에서 enable-statistics 로 켠 JCache 표준 통계(CacheStatisticsMXBean)를 읽는다.
+ * 리전 크기를 정할 때 evictions 가 계속 늘어나면 heap 엔트리 수가 부족한 것이다.
+ */
+public class CatalogCacheMetrics {
+
+    public static final String ITEM_REGION = Item.class.getName();
+    public static final String CATEGORY_REGION = Category.class.getName();
+    public static final String CATALOG_QUERY_REGION = "jpabook.jpashop.query.catalog";
+
+    private final MBeanServer mBeanServer;
+
+    public CatalogCacheMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public CatalogCacheMetrics(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    public List<CacheStats> snapshot() {
+        List<CacheStats> stats = new ArrayList<>();
+        stats.add(snapshot(ITEM_REGION));
+        stats.add(snapshot(CATEGORY_REGION));
+        stats.add(snapshot(CATALOG_QUERY_REGION));
+        return stats;
+    }
+
+    public CacheStats snapshot(String region) {
+        try {
+            ObjectName name = findStatisticsBean(region);
+            return new CacheStats(region,
+                (Long) mBeanServer.getAttribute(name, "CacheHits"),
+                (Long) mBeanServer.getAttribute(name, "CacheMisses"),
+                (Long) mBeanServer.getAttribute(name, "CachePuts"),
+                (Long) mBeanServer.getAttribute(name, "CacheEvictions"));
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot read cache statistics: " + region, e);
+        }
+    }
+
+    private ObjectName findStatisticsBean(String region) throws JMException {
+        ObjectName pattern = new ObjectName(
+            "javax.cache:type=CacheStatistics,Cache=" + ObjectName.quote(region) + ",*");
+        Set<ObjectName> names = mBeanServer.queryNames(pattern, null);
+        if (names.isEmpty()) {
+            // 캐시 매니저마다 이름을 다르게 붙이는 구현이 있어 따옴표 없이도 찾아본다.
+            pattern = new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*");
+            names = mBeanServer.queryNames(pattern, null);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("cache statistics are not registered: " + region);
+        }
+        return names.iterator().next();
+    }
+
+}
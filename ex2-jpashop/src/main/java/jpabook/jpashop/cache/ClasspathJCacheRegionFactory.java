@@ -0,0 +1,38 @@
+package jpabook.jpashop.cache;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+/**
+ * hibernate.javax.cache.uri 에 "classpath:ehcache.xml" 처럼 클래스패스 리소스를 지정할 수 있게 한다.
+ * 하이버네이트 5.3 의 JCacheRegionFactory 는 절대 URI 만 받는다.
+ */
+public class ClasspathJCacheRegionFactory extends JCacheRegionFactory {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    @Override
+    protected URI getUri(Map properties) {
+        Object uri = properties.get(ConfigSettings.CONFIG_URI);
+        if (uri == null || !uri.toString().startsWith(CLASSPATH_PREFIX)) {
+            return super.getUri(properties);
+        }
+
+        String resource = uri.toString().substring(CLASSPATH_PREFIX.length());
+        URL url = getClass().getClassLoader().getResource(resource);
+        if (url == null) {
+            throw new CacheException("Couldn't find cache configuration on classpath: " + resource);
+        }
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new CacheException("Couldn't create URI from " + url, e);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package jpabook.jpashop.category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 카테고리 서브트리의 불변 인덱스.
+ * <p>
+ * 노드를 전위 순회(preorder) 순서로 배열에 담아 두므로 어떤 노드의 서브트리든
+ * {@code [position, subtreeEnd)} 구간이 되고, DB 를 다시 조회하지 않고 배열 복사 한 번으로 꺼낸다.
+ */
+public final class CategoryTree {
+
+    private final long version;
+    private final long[] ids;
+    private final String[] names;
+    // 부모의 position, 루트는 -1
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] subtreeEnds;
+    private final Map<Long, Integer> positions;
+
+    private CategoryTree(long version, long[] ids, String[] names, int[] parents, int[] depths, int[] subtreeEnds) {
+        this.version = version;
+        this.ids = ids;
+        this.names = names;
+        this.parents = parents;
+        this.depths = depths;
+        this.subtreeEnds = subtreeEnds;
+        this.positions = new HashMap<>(ids.length * 4 / 3 + 1);
+        for (int i = 0; i < ids.length; i++) {
+            positions.put(ids[i], i);
+        }
+    }
+
+    /**
+     * (id, parentId, name) 행으로 rootId 아래 트리를 만든다. 행의 순서는 상관없다.
+     */
+    static CategoryTree build(long version, long rootId, List<Object[]> rows) {
+        Map<Long, List<Object[]>> childrenByParent = new HashMap<>();
+        Object[] root = null;
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            if (id == rootId) {
+                root = row;
+            } else {
+                long parentId = ((Number) row[1]).longValue();
+                childrenByParent.computeIfAbsent(parentId, key -> new ArrayList<>()).add(row);
+            }
+        }
+        if (root == null) {
+            throw new IllegalArgumentException("category not found: " + rootId);
+        }
+
+        int size = rows.size();
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        int[] parents = new int[size];
+        int[] depths = new int[size];
+        int[] subtreeEnds = new int[size];
+
+        // 재귀 대신 스택으로 전위 순회한다. 깊은 트리에서도 StackOverflowError 가 나지 않는다.
+        int[] stackPositions = new int[size];
+        List<Object[]> stack = new ArrayList<>();
+        stack.add(root);
+        int next = 0;
+        int top = 0;
+        parents[0] = -1;
+        while (!stack.isEmpty()) {
+            Object[] row = stack.remove(stack.size() - 1);
+            int position = next++;
+            long id = ((Number) row[0]).longValue();
+            ids[position] = id;
+            names[position] = (String) row[2];
+            if (position > 0) {
+                parents[position] = stackPositions[--top];
+                depths[position] = depths[parents[position]] + 1;
+            }
+
+            List<Object[]> children = childrenByParent.getOrDefault(id, Collections.emptyList());
+            // 스택에서 id 순서대로 꺼내도록 거꾸로 넣는다.
+            children.sort((a, b) -> Long.compare(((Number) b[0]).longValue(), ((Number) a[0]).longValue()));
+            for (Object[] child : children) {
+                stack.add(child);
+                stackPositions[top++] = position;
+            }
+        }
+        if (next != size) {
+            throw new IllegalStateException("category rows are not a tree under " + rootId
+                + ": " + next + " of " + size + " reachable");
+        }
+
+        // 자식의 구간이 끝나는 위치가 부모의 구간이 끝나는 위치다.
+        for (int i = size - 1; i >= 0; i--) {
+            subtreeEnds[i] = Math.max(subtreeEnds[i], i + 1);
+            if (parents[i] >= 0) {
+                subtreeEnds[parents[i]] = Math.max(subtreeEnds[parents[i]], subtreeEnds[i]);
+            }
+        }
+        return new CategoryTree(version, ids, names, parents, depths, subtreeEnds);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getRootId() {
+        return ids[0];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long categoryId) {
+        return positions.containsKey(categoryId);
+    }
+
+    public String getName(long categoryId) {
+        return names[position(categoryId)];
+    }
+
+    public int getDepth(long categoryId) {
+        return depths[position(categoryId)];
+    }
+
+    // 루트면 null
+    public Long getParentId(long categoryId) {
+        int parent = parents[position(categoryId)];
+        return parent < 0 ? null : ids[parent];
+    }
+
+    public List<Long> getChildIds(long categoryId) {
+        int position = position(categoryId);
+        List<Long> children = new ArrayList<>();
+        for (int child = position + 1; child < subtreeEnds[position]; child = subtreeEnds[child]) {
+            children.add(ids[child]);
+        }
+        return children;
+    }
+
+    /**
+     * categoryId 와 그 아래 모든 카테고리 id (전위 순회 순서)
+     */
+    public long[] subtreeIds(long categoryId) {
+        int position = position(categoryId);
+        return Arrays.copyOfRange(ids, position, subtreeEnds[position]);
+    }
+
+    // 루트부터 categoryId 까지의 id
+    public List<Long> pathTo(long categoryId) {
+        List<Long> path = new ArrayList<>();
+        for (int position = position(categoryId); position >= 0; position = parents[position]) {
+            path.add(ids[position]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private int position(long categoryId) {
+        Integer position = positions.get(categoryId);
+        if (position == null) {
+            throw new IllegalArgumentException("category " + categoryId + " is not under " + ids[0]);
+        }
+        return position;
+    }
+
+}
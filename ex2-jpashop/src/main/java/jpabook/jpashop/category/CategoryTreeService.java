@@ -0,0 +1,112 @@
+package jpabook.jpashop.category;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import jpabook.jpashop.domain.Item;
+
+/**
+ * 카테고리 트리 조회.
+ * <p>
+ * {@code category.getChild()} 를 따라가면 노드마다 쿼리가 한 번씩 나가므로, 서브트리 전체를
+ * 재귀 CTE 한 번으로 읽어서 {@link CategoryTree} 로 캐시한다.
+ * 카테고리를 추가, 이동, 삭제한 트랜잭션이 커밋되면 {@link #invalidate()} 를 호출한다.
+ * 버전이 올라가면 캐시된 트리는 다음 조회 때 다시 읽는다.
+ * <p>
+ * 애플리케이션에 하나만 만들어서 공유한다.
+ */
+public class CategoryTreeService {
+
+    // 잘못된 데이터로 부모가 순환하면 재귀 CTE 가 끝나지 않으므로 깊이를 제한한다.
+    // 한 단계 더 읽어서 그 단계에 행이 있으면 잘라내지 않고 예외를 던진다.
+    static final int MAX_DEPTH = 64;
+
+    private static final String SUBTREE_SQL = "with recursive tree(id, parent_id, name, depth) as ("
+        + " select c.id, c.PARENT_ID, c.name, 0 from Category c where c.id = ?1"
+        + " union all"
+        + " select c.id, c.PARENT_ID, c.name, t.depth + 1 from Category c join tree t on c.PARENT_ID = t.id"
+        + " where t.depth <= " + MAX_DEPTH
+        + ") select id, parent_id, name, depth from tree";
+
+    // 서브트리 카테고리에 속한 상품. 여러 카테고리에 속한 상품은 한 번만 읽는다. Item 은 JOINED 상속이므로 하위 타입 테이블의 컬럼을 함께 읽는다.
+    // Item 의 하위 타입이나 컬럼을 추가하면 여기에도 추가한다.
+    private static final String ITEMS_UNDER_SQL = "with recursive tree(id, depth) as ("
+        + " select c.id, 0 from Category c where c.id = ?1"
+        + " union all"
+        + " select c.id, t.depth + 1 from Category c join tree t on c.PARENT_ID = t.id"
+        + " where t.depth < " + MAX_DEPTH
+        + ") select distinct i.*, b.author, b.isbn, m.director, m.actor, a.artist, a.etc from tree t"
+        + " join CATEGORY_ITEM ci on ci.CATEGORY_ID = t.id"
+        + " join Item i on i.ITEM_ID = ci.ITEM_ID"
+        + " left join Book b on b.ITEM_ID = i.ITEM_ID"
+        + " left join Movie m on m.ITEM_ID = i.ITEM_ID"
+        + " left join Album a on a.ITEM_ID = i.ITEM_ID";
+
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentMap<Long, CategoryTree> trees = new ConcurrentHashMap<>();
+
+    /**
+     * rootId 아래 트리. 캐시된 트리가 현재 버전이 아니면 다시 읽는다.
+     */
+    public CategoryTree getTree(EntityManager em, long rootId) {
+        long currentVersion = version.get();
+        CategoryTree tree = trees.get(rootId);
+        if (tree != null && tree.getVersion() == currentVersion) {
+            return tree;
+        }
+
+        CategoryTree loaded = loadTree(em, rootId, currentVersion);
+        // 읽는 동안 버전이 올라갔으면 낡은 트리는 넣지 않는다.
+        if (version.get() == currentVersion) {
+            trees.put(rootId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 캐시를 거치지 않고 서브트리를 쿼리 한 번으로 읽는다.
+     */
+    public CategoryTree loadTree(EntityManager em, long rootId) {
+        return loadTree(em, rootId, version.get());
+    }
+
+    /**
+     * categoryId 와 그 아래 모든 카테고리에 속한 상품. 재귀 CTE 를 CATEGORY_ITEM 과 조인한 네이티브 쿼리 한 번이다.
+     * categoryId 가 rootId 아래에 있는지, 트리 깊이가 {@value #MAX_DEPTH} 안인지는 캐시된 트리로 확인한다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Item> findItemsUnder(EntityManager em, long rootId, long categoryId) {
+        if (!getTree(em, rootId).contains(categoryId)) {
+            throw new IllegalArgumentException("category " + categoryId + " is not under " + rootId);
+        }
+        return em.createNativeQuery(ITEMS_UNDER_SQL, Item.class)
+            .setParameter(1, categoryId)
+            .getResultList();
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        trees.clear();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CategoryTree loadTree(EntityManager em, long rootId, long treeVersion) {
+        List<Object[]> rows = em.createNativeQuery(SUBTREE_SQL)
+            .setParameter(1, rootId)
+            .getResultList();
+        for (Object[] row : rows) {
+            if (((Number) row[3]).intValue() > MAX_DEPTH) {
+                throw new IllegalStateException("category tree under " + rootId + " is deeper than "
+                    + MAX_DEPTH + " levels or has a cycle at category " + row[0]);
+            }
+        }
+        return CategoryTree.build(treeVersion, rootId, rows);
+    }
+
+}
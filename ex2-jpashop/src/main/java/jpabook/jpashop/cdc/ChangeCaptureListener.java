@@ -0,0 +1,287 @@
+package jpabook.jpashop.cdc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.archive.ArchiveListener;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.order.StockChangeListener;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.ComponentType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+/**
+ * flush 로 실행된 INSERT, UPDATE, DELETE 를 커밋된 뒤에 {@link ChangeEvent} 로 만들어 {@link ChangePublisher} 에 넘긴다.
+ * 롤백된 트랜잭션의 변경은 발행하지 않는다. 이벤트는 커밋한 스레드에서 만들어지고, 큐에 넣는 것까지만 커밋 시간에 더해진다.
+ * <p>
+ * 추적할 엔티티와 속성은 엔티티 클래스 -> 속성 이름으로 정한다. 속성이 비어 있으면 컬렉션을 뺀 모든 속성을 추적하고,
+ * 하위 클래스(Book)는 상위 클래스(Item)의 설정을 따르고, 이벤트의 entity 는 최상위 엔티티 이름(Item)이다.
+ * UPDATE 는 추적하는 속성이 바뀌었을 때만 발행한다.
+ * <p>
+ * JPQL 벌크 연산, 네이티브 SQL, JDBC 로 바꾼 행은 flush 를 거치지 않으므로 이 리스너가 발행하지 못한다.
+ * OrderPlacementService 의 재고 차감은 {@link #stockChanges(ChangePublisher)} 로 Item UPDATE(stockQuantity) 를,
+ * OrderArchiver 가 옮긴 주문은 {@link #archivedChunks(ChangePublisher)} 로 chunk 마다 ARCHIVE 이벤트 하나를 발행한다.
+ * BulkOperations 의 cancelOrdersBefore, purgeOrderItems 처럼 범위로 바꾸는 벌크 연산은
+ * 바뀐 행의 식별자를 모르므로 발행되지 않는다.
+ *
+ * <pre>{@code
+ * ChangePublisher publisher = new ChangePublisher(new FileChangeSink(Paths.get("changes.jsonl")));
+ * ChangeCaptureListener.attach(emf, publisher);
+ * placementService.addStockChangeListener(ChangeCaptureListener.stockChanges(publisher));
+ * orderArchiver.addListener(ChangeCaptureListener.archivedChunks(publisher));
+ * }</pre>
+ */
+public class ChangeCaptureListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+    private static final Tracked NOT_TRACKED = new Tracked(null, new int[0], new String[0], new Type[0]);
+
+    private final ChangePublisher publisher;
+    private final Map<Class<?>, Set<String>> trackedProperties;
+    private final ConcurrentMap<String, Tracked> trackedByEntity = new ConcurrentHashMap<>();
+
+    public ChangeCaptureListener(ChangePublisher publisher, Map<Class<?>, Set<String>> trackedProperties) {
+        this.publisher = publisher;
+        this.trackedProperties = new HashMap<>(trackedProperties);
+    }
+
+    /**
+     * 주문, 주문상품 전체와 배송 상태(Delivery.deliveryStatus), 재고(Item.stockQuantity)를 추적한다.
+     */
+    public static Map<Class<?>, Set<String>> defaultTrackedProperties() {
+        Map<Class<?>, Set<String>> tracked = new HashMap<>();
+        tracked.put(Order.class, Collections.emptySet());
+        tracked.put(OrderItem.class, Collections.emptySet());
+        tracked.put(Delivery.class, Collections.singleton("deliveryStatus"));
+        tracked.put(Item.class, Collections.singleton("stockQuantity"));
+        return tracked;
+    }
+
+    public static ChangeCaptureListener attach(EntityManagerFactory emf, ChangePublisher publisher) {
+        return attach(emf, publisher, defaultTrackedProperties());
+    }
+
+    public static ChangeCaptureListener attach(EntityManagerFactory emf, ChangePublisher publisher,
+        Map<Class<?>, Set<String>> trackedProperties) {
+        ChangeCaptureListener listener = new ChangeCaptureListener(publisher, trackedProperties);
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        return listener;
+    }
+
+    /**
+     * 커밋된 재고 차감을 Item UPDATE(stockQuantity) 로 발행한다.
+     */
+    public static StockChangeListener stockChanges(ChangePublisher publisher) {
+        return (itemId, stockQuantity) -> publisher.publish(ChangeType.UPDATE, Item.class.getSimpleName(), itemId,
+            Collections.singletonMap("stockQuantity", stockQuantity));
+    }
+
+    /**
+     * 보관 테이블로 옮긴 chunk 하나를 ARCHIVE 이벤트 하나로 발행한다. id 는 null 이고 changes 는 month, orderIds 이다.
+     */
+    public static ArchiveListener archivedChunks(ChangePublisher publisher) {
+        return (month, orderIds) -> {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            changes.put("month", month.toString());
+            changes.put("orderIds", Collections.unmodifiableList(new ArrayList<>(orderIds)));
+            publisher.publish(ChangeType.ARCHIVE, Order.class.getSimpleName(), null, changes);
+        };
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Tracked tracked = tracked(event.getPersister());
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (int i = 0; i < tracked.indexes.length; i++) {
+            put(changes, tracked.names[i], tracked.types[i], event.getState()[tracked.indexes[i]], event.getSession());
+        }
+        publisher.publish(ChangeType.INSERT, tracked.entity, event.getId(), changes);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Tracked tracked = tracked(event.getPersister());
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        int[] dirty = event.getDirtyProperties();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (int i = 0; i < tracked.indexes.length; i++) {
+            int index = tracked.indexes[i];
+            boolean changed = dirty != null
+                ? contains(dirty, index)
+                : oldState == null || !tracked.types[i].isEqual(oldState[index], state[index]);
+            if (changed) {
+                put(changes, tracked.names[i], tracked.types[i], state[index], event.getSession());
+            }
+        }
+        if (!changes.isEmpty()) {
+            publisher.publish(ChangeType.UPDATE, tracked.entity, event.getId(), changes);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publisher.publish(ChangeType.DELETE, tracked(event.getPersister()).entity, event.getId(),
+            Collections.emptyMap());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return tracked(persister) != NOT_TRACKED;
+    }
+
+    // 하이버네이트 5.3 에서는 아직 추상 메서드라서 구현해야 한다. 하이버네이트는 requiresPostCommitHandling 을 호출한다.
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private Tracked tracked(EntityPersister persister) {
+        Tracked tracked = trackedByEntity.get(persister.getEntityName());
+        if (tracked == null) {
+            tracked = trackedByEntity.computeIfAbsent(persister.getEntityName(), name -> resolve(persister));
+        }
+        return tracked;
+    }
+
+    private Tracked resolve(EntityPersister persister) {
+        Set<String> properties = null;
+        for (Class<?> type = persister.getMappedClass(); type != null && properties == null;
+            type = type.getSuperclass()) {
+            properties = trackedProperties.get(type);
+        }
+        if (properties == null) {
+            return NOT_TRACKED;
+        }
+
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (String property : properties) {
+            if (!contains(names, property)) {
+                throw new IllegalArgumentException("property not mapped: " + persister.getEntityName() + "." + property);
+            }
+        }
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            // 컬렉션과 mappedBy 쪽 일대일은 이 엔티티 테이블의 컬럼이 아니다.
+            boolean column = !types[i].isCollectionType()
+                && !(types[i].isEntityType() && ((EntityType) types[i]).isOneToOne());
+            if (column && (properties.isEmpty() || properties.contains(names[i]))) {
+                indexes.add(i);
+            }
+        }
+        int[] trackedIndexes = new int[indexes.size()];
+        String[] trackedNames = new String[indexes.size()];
+        Type[] trackedTypes = new Type[indexes.size()];
+        for (int i = 0; i < trackedIndexes.length; i++) {
+            trackedIndexes[i] = indexes.get(i);
+            trackedNames[i] = names[trackedIndexes[i]];
+            trackedTypes[i] = types[trackedIndexes[i]];
+        }
+        String entity = persister.getFactory().getMetamodel()
+            .entityPersister(persister.getRootEntityName())
+            .getMappedClass()
+            .getSimpleName();
+        return new Tracked(entity, trackedIndexes, trackedNames, trackedTypes);
+    }
+
+    private static void put(Map<String, Object> changes, String name, Type type, Object value,
+        SharedSessionContractImplementor session) {
+        if (type.isComponentType()) {
+            ComponentType component = (ComponentType) type;
+            String[] names = component.getPropertyNames();
+            Type[] types = component.getSubtypes();
+            Object[] values = value == null ? new Object[names.length] : component.getPropertyValues(value, session);
+            for (int i = 0; i < names.length; i++) {
+                put(changes, name + "." + names[i], types[i], values[i], session);
+            }
+        } else if (type.isEntityType() && value != null) {
+            changes.put(name, identifier((EntityType) type, value, session));
+        } else {
+            changes.put(name, value);
+        }
+    }
+
+    private static Object identifier(EntityType type, Object value, SharedSessionContractImplementor session) {
+        if (value instanceof HibernateProxy) {
+            return ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier();
+        }
+        return session.getFactory().getMetamodel()
+            .entityPersister(type.getAssociatedEntityName())
+            .getIdentifier(value, session);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(String[] values, String value) {
+        for (String v : values) {
+            if (v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Tracked {
+
+        private final String entity;
+        private final int[] indexes;
+        private final String[] names;
+        private final Type[] types;
+
+        private Tracked(String entity, int[] indexes, String[] names, Type[] types) {
+            this.entity = entity;
+            this.indexes = indexes;
+            this.names = names;
+            this.types = types;
+        }
+    }
+
+}
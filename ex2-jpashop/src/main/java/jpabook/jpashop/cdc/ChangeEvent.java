@@ -0,0 +1,38 @@
+package jpabook.jpashop.cdc;
+
+import java.time.Instant;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 커밋된 엔티티 한 건의 변경.
+ * <p>
+ * changes 는 속성 이름 -> 커밋된 값이다. INSERT 는 추적하는 속성 전체, UPDATE 는 그중 바뀐 속성만, DELETE 는 비어 있다.
+ * 연관 엔티티는 식별자로, 임베디드 값은 "address.city" 처럼 펼쳐서 담는다.
+ * sequence 는 발행할 때마다 1 씩 늘어나고 sink 는 번호 순서대로 받으므로, 받는 쪽은 빠진 번호로 버려진 이벤트가 있었는지,
+ * 같은 번호로 다시 받은 이벤트인지 알 수 있다.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeEvent {
+
+    private final long sequence;
+    private final ChangeType type;
+    private final String entity;
+    private final Object id;
+    private final Map<String, Object> changes;
+    private final Instant committedAt;
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+            "sequence=" + sequence +
+            ", type=" + type +
+            ", entity='" + entity + '\'' +
+            ", id=" + id +
+            ", changes=" + changes +
+            ", committedAt=" + committedAt +
+            '}';
+    }
+}
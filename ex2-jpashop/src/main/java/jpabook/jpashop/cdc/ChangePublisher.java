@@ -0,0 +1,241 @@
+package jpabook.jpashop.cdc;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 커밋한 스레드가 넘긴 변경을 {@link ChangeEvent} 로 만들어 크기가 정해진 큐에 넣고,
+ * 백그라운드 스레드 하나가 batchSize 건씩 묶어서 sink 에 넘긴다.
+ * <p>
+ * 큐가 가득 차면(sink 가 따라오지 못하면) {@link OverflowPolicy} 에 따라
+ * 바로 버리거나(DROP), offerTimeout 만큼 커밋한 스레드를 기다리게 한 뒤 버린다(BLOCK).
+ * 이벤트는 이미 커밋된 뒤에 발행되므로 버려도 트랜잭션은 실패하지 않는다. 버린 건수는 {@link #getDropped()} 로 본다.
+ * <p>
+ * sequence 를 붙이는 것과 큐에 넣는 것은 한 잠금 안에서 하므로, sink 는 sequence 순서대로 이벤트를 받는다.
+ * 버린 이벤트도 번호를 하나 쓰므로, 받는 쪽은 빠진 번호로 버려진 이벤트가 있었다는 것을 알고 다시 동기화할 수 있다.
+ * BLOCK 은 잠금 밖에서 자리가 나기를 기다리고, 번호는 큐에 넣을 때(또는 기다리다 버릴 때) 붙인다.
+ * 그래서 한 스레드가 기다리는 동안 다른 커밋 스레드는 막히지 않고, 먼저 자리를 얻은 이벤트가 앞 번호를 받는다.
+ * <p>
+ * sink 가 예외를 던지면 같은 묶음을 {@value #MAX_ATTEMPTS} 번까지 다시 넘기고, 그래도 실패하면 WARN 로그를 남기고 버린다.
+ * 이 번호들도 빠진 번호가 된다.
+ * {@link #close()} 는 큐에 남은 이벤트를 모두 넘긴 뒤 sink 를 닫는다. 닫힌 뒤에 발행한 이벤트는 버린다.
+ */
+public class ChangePublisher implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(ChangePublisher.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final ChangeSink sink;
+    private final BlockingQueue<ChangeEvent> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+    private final Clock clock;
+    private final Thread worker;
+
+    // sequence, closed 를 읽고 쓰는 것과 큐에 넣는 것을 묶는다.
+    private final ReentrantLock publishLock = new ReentrantLock();
+    // BLOCK 으로 기다리는 스레드를 worker 가 큐를 비운 뒤 깨운다.
+    private final Object space = new Object();
+    private long sequence;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ChangePublisher(ChangeSink sink) {
+        this(sink, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, OverflowPolicy.DROP, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public ChangePublisher(ChangeSink sink, int capacity, int batchSize, OverflowPolicy overflowPolicy,
+        long offerTimeout, TimeUnit unit) {
+        this(sink, capacity, batchSize, overflowPolicy, offerTimeout, unit, Clock.systemUTC());
+    }
+
+    public ChangePublisher(ChangeSink sink, int capacity, int batchSize, OverflowPolicy overflowPolicy,
+        long offerTimeout, TimeUnit unit, Clock clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = unit.toNanos(offerTimeout);
+        this.clock = clock;
+        this.worker = new Thread(this::run, "change-publisher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 커밋된 변경 한 건을 발행한다. committedAt 은 지금 시각이다.
+     *
+     * @return 큐에 넣었으면 true, 큐가 가득 차서(또는 닫혀서) 버렸으면 false
+     */
+    public boolean publish(ChangeType type, String entity, Object id, Map<String, Object> changes) {
+        boolean block = overflowPolicy == OverflowPolicy.BLOCK && offerTimeoutNanos > 0;
+        long deadline = block ? System.nanoTime() + offerTimeoutNanos : 0;
+        boolean accepted = false;
+        while (true) {
+            publishLock.lock();
+            try {
+                if (closed) {
+                    break;
+                }
+                // 큐에 넣는 것은 이 잠금 안에서만 하고 worker 는 꺼내기만 하므로, 자리가 있으면 offer 는 성공한다.
+                if (queue.remainingCapacity() > 0 || !block || deadline - System.nanoTime() <= 0) {
+                    ChangeEvent event = new ChangeEvent(++sequence, type, entity, id, changes, clock.instant());
+                    accepted = queue.offer(event);
+                    break;
+                }
+            } finally {
+                publishLock.unlock();
+            }
+            // 자리가 날 때까지 잠금 밖에서 기다린다. 기다리는 동안 다른 커밋 스레드는 막히지 않는다.
+            if (!awaitSpace(deadline)) {
+                block = false;
+            }
+        }
+        if (accepted) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+        return accepted;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        // 잠금을 잡고 닫아서, 닫힌 뒤에 큐에 들어가는 이벤트가 없다. worker 는 큐를 비운 뒤 끝난다.
+        publishLock.lock();
+        try {
+            closed = true;
+        } finally {
+            publishLock.unlock();
+        }
+        synchronized (space) {
+            space.notifyAll();
+        }
+        worker.join();
+        sink.close();
+    }
+
+    /**
+     * @return 인터럽트되면 false
+     */
+    private boolean awaitSpace(long deadline) {
+        synchronized (space) {
+            try {
+                long remaining;
+                while (queue.remainingCapacity() == 0 && !closed && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(space, remaining);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void run() {
+        List<ChangeEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            ChangeEvent first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // 닫힐 때까지 계속 꺼낸다.
+                continue;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            synchronized (space) {
+                space.notifyAll();
+            }
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<ChangeEvent> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.accept(batch);
+                delivered.add(batch.size());
+                batches.increment();
+                return;
+            } catch (Exception e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.add(batch.size());
+                    log.warn("change sink failed, {} events dropped (sequence {} ~ {})", batch.size(),
+                        batch.get(0).getSequence(), batch.get(batch.size() - 1).getSequence(), e);
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
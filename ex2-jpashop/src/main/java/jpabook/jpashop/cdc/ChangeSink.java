@@ -0,0 +1,18 @@
+package jpabook.jpashop.cdc;
+
+import java.util.List;
+
+/**
+ * {@link ChangePublisher} 가 모은 이벤트를 받는 곳 (검색 색인, 캐시 무효화, 분석용 적재 등).
+ * 한 스레드에서만 호출되며, 예외를 던지면 같은 묶음으로 다시 호출된다.
+ * 그래서 같은 이벤트를 두 번 받을 수 있다(at-least-once). 받는 쪽은 {@link ChangeEvent#getSequence()} 로 중복을 거른다.
+ */
+public interface ChangeSink extends AutoCloseable {
+
+    void accept(List<ChangeEvent> events) throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+
+}
@@ -0,0 +1,7 @@
+package jpabook.jpashop.cdc;
+
+public enum ChangeType {
+    INSERT, UPDATE, DELETE,
+    /** 주문들을 보관 테이블로 옮겼다. 행마다가 아니라 옮긴 묶음마다 하나 발행한다. */
+    ARCHIVE
+}
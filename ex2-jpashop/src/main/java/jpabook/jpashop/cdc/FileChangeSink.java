@@ -0,0 +1,104 @@
+package jpabook.jpashop.cdc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 이벤트를 한 줄에 하나씩 JSON 으로 파일 끝에 덧붙인다. 묶음 전체를 문자열로 만든 뒤 한 번에 쓰고 flush 한다.
+ * <p>
+ * 쓰는 도중 입출력 오류가 나면 묶음의 앞부분만 기록될 수 있고, {@link ChangePublisher} 가 같은 묶음을 다시 넘기면
+ * 그 줄들이 한 번 더 기록된다(at-least-once). 읽는 쪽은 sequence 로 중복을 거른다.
+ *
+ * <pre>{@code
+ * {"sequence":3,"type":"UPDATE","entity":"Delivery","id":51,"committedAt":"2020-01-01T00:00:00Z","changes":{"deliveryStatus":"COMP"}}
+ * {"sequence":4,"type":"ARCHIVE","entity":"Order","id":null,"committedAt":"2020-01-01T00:00:01Z","changes":{"month":"2019-06","orderIds":[7,8]}}
+ * }</pre>
+ */
+public class FileChangeSink implements ChangeSink {
+
+    private final Path path;
+    private final BufferedWriter writer;
+
+    public FileChangeSink(Path path) throws IOException {
+        this.path = path;
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void accept(List<ChangeEvent> events) throws IOException {
+        StringBuilder line = new StringBuilder(events.size() * 160);
+        for (ChangeEvent event : events) {
+            line.append("{\"sequence\":").append(event.getSequence())
+                .append(",\"type\":\"").append(event.getType())
+                .append("\",\"entity\":");
+            appendValue(line, event.getEntity());
+            line.append(",\"id\":");
+            appendValue(line, event.getId());
+            line.append(",\"committedAt\":\"").append(event.getCommittedAt()).append("\",\"changes\":{");
+            boolean first = true;
+            for (Map.Entry<String, Object> change : event.getChanges().entrySet()) {
+                if (!first) {
+                    line.append(',');
+                }
+                first = false;
+                appendValue(line, change.getKey());
+                line.append(':');
+                appendValue(line, change.getValue());
+            }
+            line.append("}}\n");
+        }
+        writer.append(line);
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static void appendValue(StringBuilder json, Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+            return;
+        }
+        if (value instanceof Collection) {
+            json.append('[');
+            boolean first = true;
+            for (Object element : (Collection<?>) value) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                appendValue(json, element);
+            }
+            json.append(']');
+            return;
+        }
+        String text = value.toString();
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+}
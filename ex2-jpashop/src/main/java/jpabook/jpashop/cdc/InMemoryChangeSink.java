@@ -0,0 +1,49 @@
+package jpabook.jpashop.cdc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 받은 이벤트를 메모리에 쌓는다. 테스트, 벤치마크용
+ */
+public class InMemoryChangeSink implements ChangeSink {
+
+    private final List<ChangeEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void accept(List<ChangeEvent> batch) {
+        events.addAll(batch);
+        notifyAll();
+    }
+
+    public synchronized List<ChangeEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized int size() {
+        return events.size();
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+
+    /**
+     * 이벤트가 count 건 이상 쌓일 때까지 기다린다.
+     *
+     * @return 시간 안에 쌓였으면 true
+     */
+    public synchronized boolean await(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (events.size() < count) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+}
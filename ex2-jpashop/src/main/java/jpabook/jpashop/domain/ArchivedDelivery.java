@@ -0,0 +1,32 @@
+package jpabook.jpashop.domain;
+
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * 보관된 주문의 배송. OrderArchiver 가 Delivery 의 행을 컬럼 그대로 옮긴다.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "DELIVERY_ARCHIVE")
+public class ArchivedDelivery {
+
+    @Id
+    private Long id;
+
+    @Embedded
+    private Address address;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+}
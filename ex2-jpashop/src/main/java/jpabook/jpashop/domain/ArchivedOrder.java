@@ -0,0 +1,48 @@
+package jpabook.jpashop.domain;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * 보관된(마감된 달의) 주문. OrderArchiver 가 ORDERS 의 행을 컬럼 그대로 옮긴다.
+ * 주문상품, 배송은 {@link ArchivedOrderItem}, {@link ArchivedDelivery} 로 옮긴다.
+ * <p>
+ * 기간 조회(OrderRangeQueries)에서 읽는다. id 로는 {@code em.find(Order.class, id)} 로 찾는다. (Order 의 @Loader)
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "ORDERS_ARCHIVE", indexes = {
+    @Index(name = "IDX_ORDERS_ARCHIVE_ORDER_DATE", columnList = "orderDate"),
+    @Index(name = "IDX_ORDERS_ARCHIVE_STATUS_ORDER_DATE", columnList = "status, orderDate")
+})
+public class ArchivedOrder {
+
+    @Id
+    @Column(name = "ORDER_ID")
+    private Long id;
+
+    @Column(name = "MEMBER_ID")
+    private Long memberId;
+
+    @Column(name = "DELIVERY_ID")
+    private Long deliveryId;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private Long version;
+
+}
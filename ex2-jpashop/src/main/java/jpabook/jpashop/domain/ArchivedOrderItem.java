@@ -0,0 +1,36 @@
+package jpabook.jpashop.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * 보관된 주문의 주문상품. OrderArchiver 가 OrderItem 의 행을 컬럼 그대로 옮긴다.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "ORDER_ITEM_ARCHIVE", indexes = @Index(name = "IDX_ORDER_ITEM_ARCHIVE_ORDER", columnList = "ORDER_ID"))
+public class ArchivedOrderItem {
+
+    @Id
+    @Column(name = "ORDER_ITEM_ID")
+    private Long id;
+
+    @Column(name = "ORDER_ID")
+    private Long orderId;
+
+    @Column(name = "ITEM_ID")
+    private Long itemId;
+
+    private int orderPrice;
+
+    private int count;
+
+}
@@ -6,14 +6,31 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedNativeQuery;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Loader;
 
+@Getter
+@Setter
 @Entity
+// 보관된 주문의 것이면 DELIVERY_ARCHIVE 에서 읽는다. (Order 참고)
+@NamedNativeQuery(name = "Delivery.loadIncludingArchive", resultClass = Delivery.class, query =
+    "select * from (select id, city, street, zipcode, deliveryStatus from Delivery"
+        + " union all select id, city, street, zipcode, deliveryStatus from DELIVERY_ARCHIVE) where id = :id")
+@Loader(namedQuery = "Delivery.loadIncludingArchive")
+@SequenceGenerator(
+    name = "DELIVERY_SEQ_GENERATOR",
+    sequenceName = "DELIVERY_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class Delivery {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "DELIVERY_SEQ_GENERATOR")
     private Long id;
 
     @Embedded
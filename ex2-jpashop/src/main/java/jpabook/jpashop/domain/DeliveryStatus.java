@@ -1,4 +1,5 @@
 package jpabook.jpashop.domain;
 
 public enum DeliveryStatus {
+    READY, COMP;
 }
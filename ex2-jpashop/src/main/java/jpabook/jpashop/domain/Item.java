@@ -2,26 +2,38 @@ package jpabook.jpashop.domain;
 
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorColumn;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @DiscriminatorColumn
+@SequenceGenerator(
+    name = "ITEM_SEQ_GENERATOR",
+    sequenceName = "ITEM_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public abstract class Item extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ITEM_SEQ_GENERATOR")
     @Column(name = "ITEM_ID")
     private Long id;
 
@@ -31,7 +43,24 @@ public abstract class Item extends BaseEntity {
 
     private int stockQuantity;
 
+    // 재고를 동시에 수정하면 나중에 커밋하는 쪽이 OptimisticLockException 으로 실패한다.
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
+    public void addStock(int quantity) {
+        this.stockQuantity += quantity;
+    }
+
+    public void removeStock(int quantity) {
+        int restStock = this.stockQuantity - quantity;
+        if (restStock < 0) {
+            throw new NotEnoughStockException("need more stock: item " + id + ", stock " + stockQuantity
+                + ", requested " + quantity);
+        }
+        this.stockQuantity = restStock;
+    }
+
 }
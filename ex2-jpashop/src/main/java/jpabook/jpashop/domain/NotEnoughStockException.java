@@ -0,0 +1,9 @@
+package jpabook.jpashop.domain;
+
+public class NotEnoughStockException extends RuntimeException {
+
+    public NotEnoughStockException(String message) {
+        super(message);
+    }
+
+}
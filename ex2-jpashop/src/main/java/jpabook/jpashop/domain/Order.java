@@ -10,23 +10,49 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedNativeQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Loader;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "ORDERS")
+// 기간 조회("최근 7일")와 상태별 기간 조회가 전체 스캔이 되지 않도록 한다.
+@Table(name = "ORDERS", indexes = {
+    @Index(name = "IDX_ORDERS_ORDER_DATE", columnList = "orderDate"),
+    @Index(name = "IDX_ORDERS_STATUS_ORDER_DATE", columnList = "status, orderDate")
+})
+@NamedEntityGraph(
+    name = "Order.withMemberAndDelivery",
+    attributeNodes = {@NamedAttributeNode("member"), @NamedAttributeNode("delivery")}
+)
+// 마감된 달의 주문은 OrderArchiver 가 ORDERS_ARCHIVE 로 옮긴다. id 로 찾을 때(em.find, 지연 로딩)는 두 테이블을 모두 읽는다.
+@NamedNativeQuery(name = "Order.loadIncludingArchive", resultClass = Order.class, query =
+    "select * from (select ORDER_ID, MEMBER_ID, DELIVERY_ID, orderDate, status, version from ORDERS"
+        + " union all select ORDER_ID, MEMBER_ID, DELIVERY_ID, orderDate, status, version from ORDERS_ARCHIVE)"
+        + " where ORDER_ID = :id")
+@Loader(namedQuery = "Order.loadIncludingArchive")
+@SequenceGenerator(
+    name = "ORDER_SEQ_GENERATOR",
+    sequenceName = "ORDER_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ORDER_SEQ_GENERATOR")
     @Column(name = "ORDER_ID")
     private Long id;
 
@@ -44,8 +70,13 @@ public class Order {
     private OrderStatus status;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+    // 컬렉션을 채우는 네이티브 쿼리는 애너테이션으로 정의할 수 없어서 META-INF/order-archive.hbm.xml 에 있다.
+    @Loader(namedQuery = "Order.orderItemsIncludingArchive")
     private List<OrderItem> orderItems = new ArrayList<>();
 
+    @Version
+    private Long version;
+
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
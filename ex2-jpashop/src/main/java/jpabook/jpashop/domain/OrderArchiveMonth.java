@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * ORDERS_ARCHIVE 로 옮긴 달의 목록. 달은 오래된 것부터 빠짐없이 보관하므로 가장 마지막 달의 다음 달이
+ * ORDERS 에 남아 있는 주문의 시작이 된다.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "ORDERS_ARCHIVE_MONTH")
+public class OrderArchiveMonth {
+
+    // yyyyMM
+    @Id
+    @Column(name = "ARCHIVE_MONTH")
+    private Integer month;
+
+    private long orderCount;
+
+    private LocalDateTime archivedAt;
+
+    public static int key(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    public static YearMonth toYearMonth(int key) {
+        return YearMonth.of(key / 100, key % 100);
+    }
+
+}
@@ -4,19 +4,33 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Loader;
 
 @Getter
 @Setter
 @Entity
+// 보관된 주문의 것이면 ORDER_ITEM_ARCHIVE 에서 읽는다. (Order 참고)
+@NamedNativeQuery(name = "OrderItem.loadIncludingArchive", resultClass = OrderItem.class, query =
+    "select * from (select ORDER_ITEM_ID, ORDER_ID, ITEM_ID, orderPrice, count from OrderItem"
+        + " union all select ORDER_ITEM_ID, ORDER_ID, ITEM_ID, orderPrice, count from ORDER_ITEM_ARCHIVE)"
+        + " where ORDER_ITEM_ID = :id")
+@Loader(namedQuery = "OrderItem.loadIncludingArchive")
+@SequenceGenerator(
+    name = "ORDER_ITEM_SEQ_GENERATOR",
+    sequenceName = "ORDER_ITEM_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class OrderItem {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ORDER_ITEM_SEQ_GENERATOR")
     @Column(name = "ORDER_ITEM_ID")
     private Long id;
 
@@ -0,0 +1,15 @@
+package jpabook.jpashop.domain;
+
+/**
+ * 엔티티의 @SequenceGenerator 가 함께 쓰는 값.
+ * <p>
+ * allocationSize 는 시퀀스 한 번으로 확보하는 식별자 수이고, hbm2ddl 이 만드는 시퀀스의 increment by 도 이 값이 된다.
+ * 이미 만든 시퀀스가 있는 DB 에서 바꾸면 시퀀스의 increment by 도 같이 바꿔야 한다.
+ */
+public final class Sequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    private Sequences() {
+    }
+}
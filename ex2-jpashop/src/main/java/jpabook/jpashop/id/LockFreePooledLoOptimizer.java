@@ -0,0 +1,95 @@
+package jpabook.jpashop.id;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+/**
+ * pooled-lo 방식의 식별자 블록 할당기.
+ * <p>
+ * 시퀀스 값 하나가 [value, value + incrementSize) 블록의 시작 값이다. 하이버네이트 기본 pooled-lo
+ * 최적화기는 식별자 하나를 꺼낼 때마다 synchronized 로 잠그지만, 여기서는 현재 블록에서
+ * getAndIncrement 한 번으로 꺼내고, 블록을 다 쓴 스레드 하나만 시퀀스를 호출해 새 블록을 채운다.
+ * 여러 스레드가 동시에 저장해도 incrementSize 건에 한 번만 잠금을 잡는다.
+ * <p>
+ * persistence.xml 의 hibernate.id.optimizer.pooled.preferred 에 이 클래스 이름을 지정하면
+ * allocationSize 가 1 보다 큰 모든 시퀀스 생성기에 적용된다.
+ */
+public class LockFreePooledLoOptimizer implements Optimizer {
+
+    private final Class returnClass;
+    private final int incrementSize;
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(Block.EXHAUSTED);
+    private final Object refillLock = new Object();
+
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    public LockFreePooledLoOptimizer(Class returnClass, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("incrementSize must be positive: " + incrementSize);
+        }
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        while (true) {
+            Block block = currentBlock.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.hi) {
+                return IdentifierGeneratorHelper.getIntegralDataTypeHolder(returnClass)
+                    .initialize(value)
+                    .makeValue();
+            }
+            refill(block, callback);
+        }
+    }
+
+    private void refill(Block exhausted, AccessCallback callback) {
+        synchronized (refillLock) {
+            // 기다리는 동안 다른 스레드가 이미 채웠으면 그 블록을 사용한다.
+            if (currentBlock.get() != exhausted) {
+                return;
+            }
+            IntegralDataTypeHolder sourceValue = callback.getNextValue();
+            long lo = sourceValue.copy().makeValue().longValue();
+            lastSourceValue = sourceValue;
+            currentBlock.set(new Block(lo, lo + incrementSize));
+        }
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    private static final class Block {
+
+        static final Block EXHAUSTED = new Block(0, 0);
+
+        final AtomicLong next;
+        final long hi;
+
+        Block(long lo, long hi) {
+            this.next = new AtomicLong(lo);
+            this.hi = hi;
+        }
+    }
+
+}
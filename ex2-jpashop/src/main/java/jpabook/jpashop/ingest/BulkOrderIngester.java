@@ -0,0 +1,67 @@
+package jpabook.jpashop.ingest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import jpabook.jpashop.domain.Order;
+import org.hibernate.Session;
+
+/**
+ * 주문을 대량으로 저장한다.
+ * <p>
+ * chunkSize 건마다 flush 로 JDBC batch 를 보내고 clear 로 영속성 컨텍스트를 비워서
+ * 저장 건수와 상관없이 1차 캐시가 일정한 크기를 유지하도록 한다.
+ * Delivery, OrderItem 은 Order 에서 cascade 되고, Member, Item 은 식별자만 있으면 된다.
+ */
+public class BulkOrderIngester {
+
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+
+    public BulkOrderIngester(EntityManagerFactory emf) {
+        this(emf, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkOrderIngester(EntityManagerFactory emf, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+    }
+
+    public IngestResult ingest(Iterable<Order> orders) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+
+        long start = System.nanoTime();
+        long count = 0;
+
+        try {
+            // chunk 크기와 batch 크기를 맞춰서 flush 한 번이 테이블당 batch 하나가 되도록 한다.
+            em.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+
+            tx.begin();
+            for (Order order : orders) {
+                em.persist(order);
+                if (++count % chunkSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            tx.commit();
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+
+        return new IngestResult(count, System.nanoTime() - start);
+    }
+
+}
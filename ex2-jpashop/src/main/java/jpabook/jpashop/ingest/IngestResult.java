@@ -0,0 +1,29 @@
+package jpabook.jpashop.ingest;
+
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IngestResult {
+
+    private final long orderCount;
+    private final long elapsedNanos;
+
+    public double getOrdersPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return orderCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResult{" +
+            "orderCount=" + orderCount +
+            ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+            ", ordersPerSecond=" + String.format("%.1f", getOrdersPerSecond()) +
+            '}';
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.loader;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LoadReport {
+
+    private final long loadedRecords;
+    private final int partitions;
+    private final int retries;
+    private final long elapsedNanos;
+
+    // 재시도 횟수를 모두 쓰고도 실패한 파티션의 마지막 예외
+    private final List<PartitionFailure> failures;
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public double getRecordsPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return loadedRecords * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadReport{" +
+            "loadedRecords=" + loadedRecords +
+            ", partitions=" + partitions +
+            ", retries=" + retries +
+            ", failures=" + failures.size() +
+            ", elapsedMillis=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+            ", recordsPerSecond=" + String.format("%.1f", getRecordsPerSecond()) +
+            '}';
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PartitionFailure {
+
+        private final int partition;
+        private final int recordCount;
+        private final RuntimeException cause;
+    }
+}
@@ -0,0 +1,162 @@
+package jpabook.jpashop.loader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import jpabook.jpashop.loader.LoadReport.PartitionFailure;
+import org.hibernate.Session;
+
+/**
+ * 파티션마다 별도의 EntityManager, 트랜잭션으로 여러 스레드에서 동시에 적재한다.
+ * <p>
+ * EntityManager 는 스레드 안전하지 않으므로 워커끼리 공유하지 않는다. 한 파티션이 실패하면
+ * 그 파티션만 롤백하고 새 EntityManager 로 처음부터 다시 적재한다. 재시도할 때 엔티티를 새로 만들어야
+ * 하므로 입력은 엔티티가 아니라 레코드로 받고, writer 가 레코드를 엔티티로 바꿔서 persist 한다.
+ * <p>
+ * 가상 스레드를 쓸 수 있는 JVM(21+, 또는 19 에서 --enable-preview)이면 가상 스레드로, 아니면
+ * parallelism 크기의 고정 스레드 풀로 실행한다. 어느 쪽이든 동시에 열리는 EntityManager(커넥션)는
+ * parallelism 개를 넘지 않는다.
+ */
+public class PartitionedLoader<R> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 50;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 50;
+
+    private final EntityManagerFactory emf;
+    private final BiConsumer<EntityManager, R> writer;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final int chunkSize;
+
+    public PartitionedLoader(EntityManagerFactory emf, BiConsumer<EntityManager, R> writer,
+        int parallelism) {
+        this(emf, writer, parallelism, DEFAULT_MAX_ATTEMPTS, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PartitionedLoader(EntityManagerFactory emf, BiConsumer<EntityManager, R> writer,
+        int parallelism, int maxAttempts, int chunkSize) {
+        if (parallelism < 1 || maxAttempts < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("parallelism, maxAttempts and chunkSize must be positive");
+        }
+        this.emf = emf;
+        this.writer = writer;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.chunkSize = chunkSize;
+    }
+
+    public LoadReport load(List<List<R>> partitions) {
+        long start = System.nanoTime();
+        AtomicLong loadedRecords = new AtomicLong();
+        AtomicInteger retries = new AtomicInteger();
+        List<PartitionFailure> failures = Collections.synchronizedList(new ArrayList<>());
+
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = newExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                int partition = i;
+                List<R> records = partitions.get(i);
+                futures.add(executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        loadedRecords.addAndGet(loadWithRetry(records, retries));
+                    } catch (RuntimeException e) {
+                        failures.add(new PartitionFailure(partition, records.size(), e));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("loading was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("partition worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new LoadReport(loadedRecords.get(), partitions.size(), retries.get(),
+            System.nanoTime() - start, new ArrayList<>(failures));
+    }
+
+    private long loadWithRetry(List<R> records, AtomicInteger retries) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return loadPartition(records);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private long loadPartition(List<R> records) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            em.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+
+            tx.begin();
+            long count = 0;
+            for (R record : records) {
+                writer.accept(em, record);
+                if (++count % chunkSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            tx.commit();
+            return count;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(INITIAL_BACKOFF_MILLIS << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("loading was interrupted", e);
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // 가상 스레드를 쓸 수 없는 JVM
+            return Executors.newFixedThreadPool(parallelism);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 적재할 입력을 워커 수만큼 나눈다.
+ */
+public final class Partitions {
+
+    private Partitions() {
+    }
+
+    // 입력 순서(예: id 순)대로 연속된 구간으로 나눈다.
+    public static <R> List<List<R>> byRange(List<R> records, int partitionCount) {
+        List<List<R>> partitions = new ArrayList<>(partitionCount);
+        int size = records.size();
+        for (int i = 0; i < partitionCount; i++) {
+            int from = (int) ((long) size * i / partitionCount);
+            int to = (int) ((long) size * (i + 1) / partitionCount);
+            if (from < to) {
+                partitions.add(new ArrayList<>(records.subList(from, to)));
+            }
+        }
+        return partitions;
+    }
+
+    // 같은 키(예: 회원 id)의 레코드는 항상 같은 파티션에 들어가서 워커끼리 같은 행을 다투지 않는다.
+    public static <R> List<List<R>> byKey(List<R> records, Function<R, ?> key, int partitionCount) {
+        List<List<R>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (R record : records) {
+            int partition = Math.floorMod(key.apply(record).hashCode(), partitionCount);
+            partitions.get(partition).add(record);
+        }
+        partitions.removeIf(List::isEmpty);
+        return partitions;
+    }
+
+}
@@ -0,0 +1,271 @@
+package jpabook.jpashop.order;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.OptimisticLockException;
+import jpabook.jpashop.cache.CatalogCacheMetrics;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.NotEnoughStockException;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+
+/**
+ * 주문 생성. 상품 재고는 Item 의 @Version 으로 낙관적 락을 걸어서 차감한다.
+ * <p>
+ * 재고는 {@code update Item set stockQuantity = ?, version = version + 1 where ITEM_ID = ? and version = ?}
+ * 조건부 update 로 차감한다. 읽은 뒤 다른 트랜잭션이 먼저 커밋했으면 0 건이 수정되고(충돌),
+ * 트랜잭션을 되돌리지 않고 그 상품의 재고와 version 만 다시 읽어서 지수적으로 늘어나는 임의 시간 뒤 다시 시도한다.
+ * 비관적 락(select ... for update)과 달리 인기 상품을 주문하는 트랜잭션들이 재고를 읽는 동안 서로를 기다리지 않는다.
+ * <p>
+ * 주문, 주문상품, 배송을 먼저 저장(flush)하고 재고 차감을 커밋 직전 마지막 SQL 로 실행한다.
+ * 차감한 상품 행의 락은 커밋할 때까지 유지되므로, 이렇게 하면 인기 상품 행을 잡고 있는 시간이 커밋 한 번으로 줄어든다.
+ * <p>
+ * 트랜잭션 안에서 다시 읽는 방식은 READ COMMITTED 격리 수준이어야 한다. (H2, PostgreSQL, Oracle 의 기본값)
+ * REPEATABLE READ 이상에서는 다시 읽어도 트랜잭션 시작 시점의 version 이 보여서 maxAttempts 번 모두 충돌하거나
+ * (MySQL) 직렬화 오류가 난다(PostgreSQL). 그런 데이터베이스에서는 커넥션의 격리 수준을 READ COMMITTED 로 설정한다.
+ * <p>
+ * 조건부 update 는 JDBC 로 직접 실행하므로, 커밋 후 수정한 상품만 2차 캐시에서 내보낸다.
+ * (JPQL/네이티브 벌크 연산은 Item 리전 전체를 비운다.)
+ * 같은 이유로 flush 를 거치는 리스너는 재고 변경을 알 수 없으므로, 커밋 후 상품마다
+ * {@link #addStockChangeListener(StockChangeListener)} 로 등록한 리스너에 차감 후 재고를 알린다.
+ * 여러 스레드가 하나의 서비스를 공유한다. 충돌률은 {@link #getStats()} 로 본다.
+ */
+public class OrderPlacementService {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 20;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1;
+    private static final int MAX_BACKOFF_SHIFT = 5;
+
+    private static final String SELECT_STOCK_SQL =
+        "select stockQuantity, version from Item where ITEM_ID = ?";
+    private static final String DECREMENT_STOCK_SQL =
+        "update Item set stockQuantity = ?, version = version + 1 where ITEM_ID = ? and version = ?";
+
+    private final EntityManagerFactory emf;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final List<StockChangeListener> stockChangeListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder placedOrders = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder outOfStock = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    public OrderPlacementService(EntityManagerFactory emf) {
+        this(emf, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS);
+    }
+
+    public OrderPlacementService(EntityManagerFactory emf, int maxAttempts, long initialBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.emf = emf;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public void addStockChangeListener(StockChangeListener listener) {
+        stockChangeListeners.add(listener);
+    }
+
+    /**
+     * @param itemCounts 상품 id -> 주문 수량 (1 이상)
+     * @return 주문 id
+     * @throws IllegalArgumentException 주문 상품이 없거나 수량이 0 이하이면
+     * @throws NotEnoughStockException 재고가 부족하면 다시 시도하지 않는다.
+     * @throws OptimisticLockException 한 상품에서 maxAttempts 번 모두 충돌하면
+     */
+    public Long placeOrder(Long memberId, Map<Long, Integer> itemCounts) {
+        if (itemCounts.isEmpty()) {
+            throw new IllegalArgumentException("order has no items");
+        }
+        for (Map.Entry<Long, Integer> entry : itemCounts.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("count must be positive: item " + entry.getKey()
+                    + ", count " + entry.getValue());
+            }
+        }
+        // 상품 id 순서로 수정해서 두 주문이 서로의 행 락을 기다리는 교착을 피한다.
+        Map<Long, Integer> sortedCounts = new TreeMap<>(itemCounts);
+
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        List<StockChange> changes = new ArrayList<>();
+        try {
+            tx.begin();
+            Member member = em.find(Member.class, memberId);
+            Map<Long, Integer> prices = findPrices(em, sortedCounts.keySet());
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            delivery.setDeliveryStatus(DeliveryStatus.READY);
+
+            Order order = new Order();
+            order.setMember(member);
+            order.setDelivery(delivery);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(OrderStatus.ORDER);
+
+            for (Map.Entry<Long, Integer> entry : sortedCounts.entrySet()) {
+                OrderItem orderItem = new OrderItem();
+                orderItem.setItem(em.getReference(Item.class, entry.getKey()));
+                orderItem.setOrderPrice(prices.get(entry.getKey()));
+                orderItem.setCount(entry.getValue());
+                order.addOrderItem(orderItem);
+            }
+            em.persist(order);
+            em.flush();
+
+            // 재고 차감이 커밋 전 마지막 SQL 이다.
+            for (Map.Entry<Long, Integer> entry : sortedCounts.entrySet()) {
+                changes.add(em.unwrap(Session.class).doReturningWork(
+                    connection -> decrementStock(connection, entry.getKey(), entry.getValue())));
+            }
+            tx.commit();
+            placedOrders.increment();
+            evictChangedItems(changes);
+            notifyStockChanged(changes);
+            return order.getId();
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    public PlacementStats getStats() {
+        return new PlacementStats(placedOrders.sum(), attempts.sum(), conflicts.sum(),
+            outOfStock.sum(), abandoned.sum());
+    }
+
+    public void resetStats() {
+        placedOrders.reset();
+        attempts.reset();
+        conflicts.reset();
+        outOfStock.reset();
+        abandoned.reset();
+    }
+
+    private static Map<Long, Integer> findPrices(EntityManager em, Collection<Long> itemIds) {
+        Map<Long, Integer> prices = new HashMap<>();
+        List<Object[]> rows = em.createQuery("select i.id, i.price from Item i where i.id in :ids", Object[].class)
+            .setParameter("ids", itemIds)
+            .getResultList();
+        for (Object[] row : rows) {
+            prices.put((Long) row[0], (Integer) row[1]);
+        }
+        for (Long itemId : itemIds) {
+            if (!prices.containsKey(itemId)) {
+                throw new IllegalArgumentException("item not found: " + itemId);
+            }
+        }
+        return prices;
+    }
+
+    private StockChange decrementStock(Connection connection, Long itemId, int quantity) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT_STOCK_SQL);
+             PreparedStatement update = connection.prepareStatement(DECREMENT_STOCK_SQL)) {
+            for (int attempt = 1; ; attempt++) {
+                attempts.increment();
+
+                select.setLong(1, itemId);
+                int stock;
+                long version;
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalArgumentException("item not found: " + itemId);
+                    }
+                    stock = rs.getInt(1);
+                    version = rs.getLong(2);
+                }
+                if (stock < quantity) {
+                    outOfStock.increment();
+                    throw new NotEnoughStockException("need more stock: item " + itemId + ", stock " + stock
+                        + ", requested " + quantity);
+                }
+
+                update.setInt(1, stock - quantity);
+                update.setLong(2, itemId);
+                update.setLong(3, version);
+                if (update.executeUpdate() == 1) {
+                    return new StockChange(itemId, stock - quantity);
+                }
+
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    abandoned.increment();
+                    throw new OptimisticLockException("stock of item " + itemId
+                        + " was changed concurrently " + attempt + " times");
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void evictChangedItems(List<StockChange> changes) {
+        Cache cache = emf.getCache().unwrap(Cache.class);
+        for (StockChange change : changes) {
+            cache.evictEntityData(Item.class, change.itemId);
+            // 재고가 0 이 되면 "재고 있는 상품" 쿼리 결과가 달라진다.
+            if (change.stock == 0) {
+                cache.evictQueryRegion(CatalogCacheMetrics.CATALOG_QUERY_REGION);
+            }
+        }
+    }
+
+    private void notifyStockChanged(List<StockChange> changes) {
+        for (StockChangeListener listener : stockChangeListeners) {
+            for (StockChange change : changes) {
+                listener.stockChanged(change.itemId, change.stock);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        // 같이 충돌한 트랜잭션들이 동시에 다시 시도하지 않도록 [0, 상한] 에서 고른다.
+        long maxMillis = initialBackoffMillis << Math.min(attempt - 1, MAX_BACKOFF_SHIFT);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("order placement was interrupted", e);
+        }
+    }
+
+    private static class StockChange {
+
+        private final Long itemId;
+        private final int stock;
+
+        StockChange(Long itemId, int stock) {
+            this.itemId = itemId;
+            this.stock = stock;
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PlacementStats {
+
+    private final long placedOrders;
+    // 다시 시도한 횟수를 포함한 재고 차감(조건부 update) 수
+    private final long attempts;
+    // 0 건이 수정된 조건부 update 수
+    private final long conflicts;
+    private final long outOfStock;
+    // 한 상품에서 maxAttempts 번 모두 충돌해서 포기한 주문 수
+    private final long abandoned;
+
+    public double getConflictRate() {
+        return attempts == 0 ? 0 : conflicts / (double) attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "PlacementStats{" +
+            "placedOrders=" + placedOrders +
+            ", attempts=" + attempts +
+            ", conflicts=" + conflicts +
+            ", conflictRate=" + String.format("%.3f", getConflictRate()) +
+            ", outOfStock=" + outOfStock +
+            ", abandoned=" + abandoned +
+            '}';
+    }
+
+}
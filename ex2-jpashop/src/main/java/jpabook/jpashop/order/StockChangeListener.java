@@ -0,0 +1,10 @@
+package jpabook.jpashop.order;
+
+/**
+ * {@link OrderPlacementService} 가 커밋한 재고 차감을 받는다. 주문을 커밋한 스레드에서 호출된다.
+ */
+@FunctionalInterface
+public interface StockChangeListener {
+
+    void stockChanged(Long itemId, int stockQuantity);
+}
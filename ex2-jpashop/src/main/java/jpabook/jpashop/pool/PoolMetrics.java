@@ -0,0 +1,93 @@
+package jpabook.jpashop.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.pool.PoolMetricsTrackerFactory.Tracker;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * EntityManagerFactory 가 쓰는 HikariCP 풀의 현재 상태와 누적 대기 시간.
+ *
+ * <pre>{@code
+ * PoolMetrics metrics = PoolMetrics.of(emf);
+ * System.out.println(metrics);
+ * }</pre>
+ */
+@Getter
+@AllArgsConstructor
+public class PoolMetrics {
+
+    private final String poolName;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    // 커넥션을 얻으려고 기다리는 스레드 수
+    private final int threadsAwaitingConnection;
+
+    private final long acquireCount;
+    private final double averageAcquireMicros;
+    private final double maxAcquireMicros;
+    private final long totalUsageMillis;
+    private final long timeouts;
+
+    public static PoolMetrics of(EntityManagerFactory emf) {
+        HikariDataSource dataSource = dataSource(emf);
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        Tracker tracker = PoolMetricsTrackerFactory.tracker(dataSource.getPoolName());
+        if (tracker == null) {
+            throw new IllegalStateException("hibernate.hikari.metricsTrackerFactory is not "
+                + PoolMetricsTrackerFactory.class.getName());
+        }
+
+        return new PoolMetrics(dataSource.getPoolName(),
+            pool.getActiveConnections(),
+            pool.getIdleConnections(),
+            pool.getTotalConnections(),
+            pool.getThreadsAwaitingConnection(),
+            tracker.acquireCount.sum(),
+            tracker.averageAcquireMicros(),
+            tracker.maxAcquireNanos.get() / (double) TimeUnit.MICROSECONDS.toNanos(1),
+            tracker.usageMillis.sum(),
+            tracker.timeouts.sum());
+    }
+
+    // 누적 대기 시간, 사용 시간을 0 으로 되돌린다.
+    public static void reset(EntityManagerFactory emf) {
+        Tracker tracker = PoolMetricsTrackerFactory.tracker(dataSource(emf).getPoolName());
+        if (tracker != null) {
+            tracker.reset();
+        }
+    }
+
+    private static HikariDataSource dataSource(EntityManagerFactory emf) {
+        ConnectionProvider connectionProvider = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        if (!connectionProvider.isUnwrappableAs(HikariDataSource.class)) {
+            throw new IllegalStateException("not a HikariCP connection provider: " + connectionProvider);
+        }
+        return connectionProvider.unwrap(HikariDataSource.class);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+            "poolName='" + poolName + '\'' +
+            ", active=" + activeConnections +
+            ", idle=" + idleConnections +
+            ", total=" + totalConnections +
+            ", awaiting=" + threadsAwaitingConnection +
+            ", acquireCount=" + acquireCount +
+            ", averageAcquireMicros=" + String.format("%.1f", averageAcquireMicros) +
+            ", maxAcquireMicros=" + String.format("%.1f", maxAcquireMicros) +
+            ", totalUsageMillis=" + totalUsageMillis +
+            ", timeouts=" + timeouts +
+            '}';
+    }
+
+}
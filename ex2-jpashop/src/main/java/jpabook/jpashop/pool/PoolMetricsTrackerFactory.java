@@ -0,0 +1,81 @@
+package jpabook.jpashop.pool;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP 가 커넥션을 빌려줄 때마다 알려 주는 대기 시간, 사용 시간을 풀 이름별로 모은다.
+ * persistence.xml 의 hibernate.hikari.metricsTrackerFactory 로 등록하고 {@link PoolMetrics} 로 읽는다.
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private static final ConcurrentMap<String, Tracker> TRACKERS = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolName);
+        TRACKERS.put(poolName, tracker);
+        return tracker;
+    }
+
+    static Tracker tracker(String poolName) {
+        return TRACKERS.get(poolName);
+    }
+
+    static class Tracker implements IMetricsTracker {
+
+        private final String poolName;
+
+        final LongAdder acquireCount = new LongAdder();
+        final LongAdder acquireNanos = new LongAdder();
+        final AtomicLong maxAcquireNanos = new AtomicLong();
+        final LongAdder usageMillis = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+
+        Tracker(String poolName) {
+            this.poolName = poolName;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireCount.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void close() {
+            TRACKERS.remove(poolName, this);
+        }
+
+        void reset() {
+            acquireCount.reset();
+            acquireNanos.reset();
+            maxAcquireNanos.set(0);
+            usageMillis.reset();
+            timeouts.reset();
+        }
+
+        double averageAcquireMicros() {
+            long count = acquireCount.sum();
+            return count == 0 ? 0 : acquireNanos.sum() / (double) count / TimeUnit.MICROSECONDS.toNanos(1);
+        }
+    }
+
+}
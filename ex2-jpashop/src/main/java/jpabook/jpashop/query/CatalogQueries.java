@@ -0,0 +1,44 @@
+package jpabook.jpashop.query;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import jpabook.jpashop.cache.CatalogCacheMetrics;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+import org.hibernate.annotations.QueryHints;
+
+/**
+ * 상품 카탈로그 조회. 결과는 쿼리 캐시에 저장되고, ITEM, CATEGORY 테이블이 변경되면
+ * (예: stockQuantity 수정) 하이버네이트가 해당 쿼리 결과를 무효화한다.
+ */
+public class CatalogQueries {
+
+    private final EntityManager em;
+
+    public CatalogQueries(EntityManager em) {
+        this.em = em;
+    }
+
+    public List<Item> findItemsByName(String name) {
+        return em.createQuery("select i from Item i where i.name = :name", Item.class)
+            .setParameter("name", name)
+            .setHint(QueryHints.CACHEABLE, true)
+            .setHint(QueryHints.CACHE_REGION, CatalogCacheMetrics.CATALOG_QUERY_REGION)
+            .getResultList();
+    }
+
+    public List<Item> findItemsInStock() {
+        return em.createQuery("select i from Item i where i.stockQuantity > 0", Item.class)
+            .setHint(QueryHints.CACHEABLE, true)
+            .setHint(QueryHints.CACHE_REGION, CatalogCacheMetrics.CATALOG_QUERY_REGION)
+            .getResultList();
+    }
+
+    public List<Category> findCategories() {
+        return em.createQuery("select c from Category c", Category.class)
+            .setHint(QueryHints.CACHEABLE, true)
+            .setHint(QueryHints.CACHE_REGION, CatalogCacheMetrics.CATALOG_QUERY_REGION)
+            .getResultList();
+    }
+
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 상품 목록 화면용. ITEM 테이블 컬럼만 읽는다.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSummary {
+
+    private final Long id;
+    private final String name;
+    private final int price;
+    private final int stockQuantity;
+
+}
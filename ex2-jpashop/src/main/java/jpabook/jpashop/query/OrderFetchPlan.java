@@ -0,0 +1,27 @@
+package jpabook.jpashop.query;
+
+import lombok.Getter;
+
+/**
+ * 주문 목록을 읽을 때 함께 로딩할 연관관계의 범위.
+ */
+@Getter
+public enum OrderFetchPlan {
+
+    // 주문만 조회 (연관관계는 모두 지연 로딩)
+    ORDER_ONLY(null, false),
+
+    // 주문 + 회원 + 배송: 조회 쿼리 1번
+    WITH_MEMBER_AND_DELIVERY("Order.withMemberAndDelivery", false),
+
+    // 주문 + 회원 + 배송 + 주문상품 + 상품: 조회 쿼리 2번
+    FULL_AGGREGATE("Order.withMemberAndDelivery", true);
+
+    private final String entityGraph;
+    private final boolean fetchOrderItems;
+
+    OrderFetchPlan(String entityGraph, boolean fetchOrderItems) {
+        this.entityGraph = entityGraph;
+        this.fetchOrderItems = fetchOrderItems;
+    }
+}
@@ -0,0 +1,90 @@
+package jpabook.jpashop.query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import jpabook.jpashop.domain.Order;
+
+/**
+ * 주문 애그리거트 조회.
+ * <p>
+ * 컬렉션을 fetch join 하면서 페이징하면 하이버네이트가 메모리에서 페이징하므로,
+ * xToOne 관계(member, delivery)는 엔티티 그래프로 함께 조회하면서 DB 에서 페이징하고
+ * 컬렉션(orderItems, item)은 조회된 주문 id 로 IN 쿼리 한 번에 채운다.
+ * <p>
+ * {@link #readOnly()} 로 만든 OrderQueries 는 모든 쿼리를 {@link ReadOnly} 모드로 실행한다.
+ */
+public class OrderQueries {
+
+    private static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+    private final EntityManager em;
+    private final boolean readOnly;
+
+    public OrderQueries(EntityManager em) {
+        this(em, false);
+    }
+
+    private OrderQueries(EntityManager em, boolean readOnly) {
+        this.em = em;
+        this.readOnly = readOnly;
+    }
+
+    public OrderQueries readOnly() {
+        return new OrderQueries(em, true);
+    }
+
+    public List<Order> findRecentOrders(OrderFetchPlan fetchPlan, PageRequest page) {
+        TypedQuery<Order> query = em.createQuery(
+                "select o from Order o order by o.orderDate desc, o.id desc", Order.class)
+            .setFirstResult(page.getOffset())
+            .setMaxResults(page.getSize());
+
+        if (fetchPlan.getEntityGraph() != null) {
+            query.setHint(FETCH_GRAPH_HINT, em.getEntityGraph(fetchPlan.getEntityGraph()));
+        }
+
+        List<Order> orders = withMode(query).getResultList();
+
+        if (fetchPlan.isFetchOrderItems() && !orders.isEmpty()) {
+            fetchOrderItems(orders);
+        }
+        return orders;
+    }
+
+    // 리포트: 기간 내 주문을 주문상품, 상품과 함께 조회한다.
+    public List<Order> findOrdersWithItemsBetween(LocalDateTime from, LocalDateTime to) {
+        return withMode(em.createQuery("select distinct o from Order o"
+                + " join fetch o.orderItems oi"
+                + " join fetch oi.item"
+                + " where o.orderDate >= :from and o.orderDate < :to"
+                + " order by o.orderDate, o.id", Order.class))
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+    }
+
+    /**
+     * 이미 영속성 컨텍스트에 있는 주문들의 orderItems 컬렉션을 초기화한다.
+     * 같은 식별자의 주문은 1차 캐시의 인스턴스로 반환되므로 결과는 사용하지 않는다.
+     */
+    private void fetchOrderItems(List<Order> orders) {
+        List<Long> orderIds = orders.stream()
+            .map(Order::getId)
+            .collect(Collectors.toList());
+
+        withMode(em.createQuery("select distinct o from Order o"
+                + " left join fetch o.orderItems oi"
+                + " left join fetch oi.item"
+                + " where o.id in :orderIds", Order.class))
+            .setParameter("orderIds", orderIds)
+            .getResultList();
+    }
+
+    private <T> TypedQuery<T> withMode(TypedQuery<T> query) {
+        return readOnly ? ReadOnly.query(query) : query;
+    }
+
+}
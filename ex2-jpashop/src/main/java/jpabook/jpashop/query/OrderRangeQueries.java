@@ -0,0 +1,127 @@
+package jpabook.jpashop.query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import jpabook.jpashop.domain.OrderArchiveMonth;
+import jpabook.jpashop.domain.OrderStatus;
+
+/**
+ * 주문 기간 조회. 주문은 ORDERS 와, OrderArchiver 가 마감된 달을 옮긴 ORDERS_ARCHIVE 에 나뉘어 있다.
+ * <p>
+ * 두 테이블 모두 orderDate, (status, orderDate) 인덱스로 기간만 범위 스캔한다.
+ * ORDERS_ARCHIVE 는 조회 기간이 보관된 마지막 달의 끝(watermark)보다 앞에서 시작할 때만 읽고,
+ * 기간도 watermark 까지로 줄인다. "최근 7일" 같은 조회는 ORDERS 만 읽는다.
+ * 보관 후에 들어온 지난 날짜의 주문은 다음 보관 전까지 ORDERS 에 있으므로 ORDERS 는 항상 읽는다.
+ */
+public class OrderRangeQueries {
+
+    private final EntityManager em;
+
+    public OrderRangeQueries(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * [from, to) 기간의 주문을 최근 순으로 limit 건 조회한다.
+     *
+     * @param status null 이면 모든 상태
+     */
+    public List<OrderRow> findOrders(LocalDateTime from, LocalDateTime to, OrderStatus status, int limit) {
+        List<OrderRow> recent = findRows("Order", false, from, to, status, limit);
+
+        LocalDateTime watermark = getArchiveWatermark();
+        if (watermark == null || !from.isBefore(watermark)) {
+            return recent;
+        }
+        List<OrderRow> archived = findRows("ArchivedOrder", true, from, min(to, watermark), status, limit);
+        return mergeByOrderDateDesc(recent, archived, limit);
+    }
+
+    public Map<OrderStatus, Long> countByStatus(LocalDateTime from, LocalDateTime to) {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        countByStatus("Order", from, to, counts);
+
+        LocalDateTime watermark = getArchiveWatermark();
+        if (watermark != null && from.isBefore(watermark)) {
+            countByStatus("ArchivedOrder", from, min(to, watermark), counts);
+        }
+        return counts;
+    }
+
+    /**
+     * @return 보관된 마지막 달의 다음 달 1일. 보관된 달이 없으면 null
+     */
+    public LocalDateTime getArchiveWatermark() {
+        Integer lastMonth = em.createQuery(
+                "select max(m.month) from OrderArchiveMonth m", Integer.class)
+            .getSingleResult();
+        if (lastMonth == null) {
+            return null;
+        }
+        return OrderArchiveMonth.toYearMonth(lastMonth).plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    private List<OrderRow> findRows(String entity, boolean archived, LocalDateTime from, LocalDateTime to,
+        OrderStatus status, int limit) {
+        if (!from.isBefore(to)) {
+            return new ArrayList<>();
+        }
+        String memberId = archived ? "o.memberId" : "o.member.id";
+        TypedQuery<OrderRow> query = em.createQuery("select new jpabook.jpashop.query.OrderRow("
+                + "o.id, " + memberId + ", o.orderDate, o.status, " + archived + ")"
+                + " from " + entity + " o"
+                + " where o.orderDate >= :from and o.orderDate < :to"
+                + (status == null ? "" : " and o.status = :status")
+                + " order by o.orderDate desc, o.id desc", OrderRow.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return query.getResultList();
+    }
+
+    private void countByStatus(String entity, LocalDateTime from, LocalDateTime to, Map<OrderStatus, Long> counts) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        List<Object[]> rows = em.createQuery("select o.status, count(o) from " + entity + " o"
+                + " where o.orderDate >= :from and o.orderDate < :to"
+                + " group by o.status", Object[].class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+        for (Object[] row : rows) {
+            counts.merge((OrderStatus) row[0], (Long) row[1], Long::sum);
+        }
+    }
+
+    private static List<OrderRow> mergeByOrderDateDesc(List<OrderRow> first, List<OrderRow> second, int limit) {
+        List<OrderRow> merged = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j == second.size()
+                || i < first.size() && !first.get(i).getOrderDate().isBefore(second.get(j).getOrderDate())) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+}
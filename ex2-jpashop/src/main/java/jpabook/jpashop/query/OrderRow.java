@@ -0,0 +1,21 @@
+package jpabook.jpashop.query;
+
+import java.time.LocalDateTime;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 기간 조회 결과. ORDERS, ORDERS_ARCHIVE 어느 쪽에서 읽었는지는 archived 로 구분한다.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderRow {
+
+    private final Long id;
+    private final Long memberId;
+    private final LocalDateTime orderDate;
+    private final OrderStatus status;
+    private final boolean archived;
+
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.query;
+
+import lombok.Getter;
+
+@Getter
+public class PageRequest {
+
+    private final int page;
+    private final int size;
+
+    private PageRequest(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative: " + page);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        // setFirstResult 가 int 를 받으므로 offset 이 int 범위를 넘는 페이지는 만들지 않는다.
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("offset overflows int: page=" + page + ", size=" + size);
+        }
+        this.page = page;
+        this.size = size;
+    }
+
+    public static PageRequest of(int page, int size) {
+        return new PageRequest(page, size);
+    }
+
+    public int getOffset() {
+        return page * size;
+    }
+}
@@ -0,0 +1,217 @@
+package jpabook.jpashop.query;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.JoinedSubclassEntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+
+/**
+ * 상속 매핑 엔티티 조회. 부모 타입을 그대로 조회하면 JOINED 는 모든 자식 테이블을 outer join 하고,
+ * TABLE_PER_CLASS 는 모든 테이블을 UNION 한다. 필요한 테이블만 읽도록 조회를 나눈다.
+ * <ul>
+ *   <li>{@link #findAll(Class)}: 타입을 제한하면 {@code type(i) = Book} 대신 자식 타입을 직접 조회한다.</li>
+ *   <li>{@link #findBaseColumns}: 부모 컬럼만 필요하면 DTO 로 조회해서 자식 테이블을 읽지 않는다.</li>
+ *   <li>{@link #findAllBySubtype()}: 전체가 필요하면 자식 타입마다 나눠 읽는다.</li>
+ *   <li>{@link #findByIds(List, int)}: 목록은 부모 컬럼으로 보여 주고, 자식 컬럼은 필요한 id 만 타입별로 모아서 읽는다.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * PolymorphicQueries<Item> items = new PolymorphicQueries<>(em, Item.class);
+ * List<Book> books = items.findAll(Book.class);
+ * }</pre>
+ */
+public class PolymorphicQueries<T> {
+
+    // 구분 컬럼이 없을 때 하이버네이트가 쓰는 별칭
+    private static final String IMPLICIT_DISCRIMINATOR = "clazz_";
+
+    private final EntityManager em;
+    private final Class<T> rootType;
+    private final String idAttribute;
+    private final Class<?> idType;
+
+    public PolymorphicQueries(EntityManager em, Class<T> rootType) {
+        this.em = em;
+        this.rootType = rootType;
+        EntityType<T> entityType = em.getMetamodel().entity(rootType);
+        this.idType = entityType.getIdType().getJavaType();
+        this.idAttribute = entityType.getId(idType).getName();
+    }
+
+    public <S extends T> List<S> findAll(Class<S> subtype) {
+        return em.createQuery("select e from " + entityName(subtype) + " e", subtype)
+            .getResultList();
+    }
+
+    /**
+     * 부모 엔티티의 속성만 resultType 생성자로 조회한다. 예: findBaseColumns(ItemSummary.class, "id", "name", "price", "stockQuantity")
+     */
+    public <R> List<R> findBaseColumns(Class<R> resultType, String... attributes) {
+        StringBuilder select = new StringBuilder("select new ").append(resultType.getName()).append('(');
+        for (int i = 0; i < attributes.length; i++) {
+            select.append(i == 0 ? "" : ", ").append("e.").append(attributes[i]);
+        }
+        select.append(") from ").append(entityName(rootType)).append(" e order by e.").append(idAttribute);
+        return em.createQuery(select.toString(), resultType).getResultList();
+    }
+
+    /**
+     * 전체 엔티티를 자식 타입마다 한 번씩 조회한다. JOINED 는 부모 테이블과 그 타입의 테이블만 join 한다.
+     * 결과는 타입별로 모여 있다.
+     * <p>
+     * 자식 엔티티가 있는 구체 타입을 그대로 조회하면 자식 타입의 행도 함께 나와서 중복되므로,
+     * {@code type(e) = :type} 으로 그 타입의 행만 읽는다.
+     */
+    public List<T> findAllBySubtype() {
+        List<Class<? extends T>> subtypes = concreteSubtypes();
+        List<T> result = new ArrayList<>();
+        for (Class<? extends T> subtype : subtypes) {
+            result.addAll(isLeaf(subtype, subtypes) ? findAll(subtype) : findExactly(subtype));
+        }
+        return result;
+    }
+
+    /**
+     * ids 의 엔티티를 ids 순서로 조회한다. {@link #findBaseColumns} 로 목록을 보여 준 뒤 상세가 필요한 것만 읽을 때 쓴다.
+     * (id, 타입)을 읽는 쿼리 1 번 + 타입마다 batchSize 개씩 id IN 쿼리.
+     * <p>
+     * JPQL 의 type(e) 는 구분 컬럼이 있어도 자식 테이블을 모두 outer join 하므로, 부모 테이블에 구분 컬럼이 있으면
+     * (SINGLE_TABLE, @DiscriminatorColumn 이 붙은 JOINED) 부모 테이블에서 (id, 구분 값)만 SQL 로 읽는다.
+     * TABLE_PER_CLASS 는 어차피 모든 테이블을 읽어야 하므로 type(e) 를 쓴다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> findByIds(List<?> ids, int batchSize) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Long 식별자를 Integer 로 넘겨도 찾도록 식별자 타입으로 바꾼다. 바꾸지 않으면 결과에서 빠진다.
+        List<Object> typedIds = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            typedIds.add(toIdType(id));
+        }
+
+        Map<Class<?>, List<Object>> idsByType = new LinkedHashMap<>();
+        for (Object[] key : findIdsAndTypes(typedIds)) {
+            idsByType.computeIfAbsent((Class<?>) key[1], type -> new ArrayList<>()).add(key[0]);
+        }
+
+        PersistenceUnitUtil unitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Object, T> loaded = new HashMap<>(ids.size() * 4 / 3 + 1);
+        for (Map.Entry<Class<?>, List<Object>> entry : idsByType.entrySet()) {
+            Class<? extends T> subtype = (Class<? extends T>) entry.getKey();
+            List<Object> subtypeIds = entry.getValue();
+            String jpql = "select e from " + entityName(subtype) + " e where e." + idAttribute + " in :ids";
+            for (int from = 0; from < subtypeIds.size(); from += batchSize) {
+                List<? extends T> entities = em.createQuery(jpql, subtype)
+                    .setParameter("ids", subtypeIds.subList(from, Math.min(from + batchSize, subtypeIds.size())))
+                    .getResultList();
+                for (T entity : entities) {
+                    loaded.put(unitUtil.getIdentifier(entity), entity);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(typedIds.size());
+        for (Object id : typedIds) {
+            T entity = loaded.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> findIdsAndTypes(List<?> ids) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) em.getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMetamodel()
+            .entityPersister(rootType);
+        String discriminatorColumn = persister.getDiscriminatorColumnName();
+        boolean hasDiscriminatorColumn = (persister instanceof SingleTableEntityPersister
+            || persister instanceof JoinedSubclassEntityPersister)
+            && discriminatorColumn != null && !discriminatorColumn.equals(IMPLICIT_DISCRIMINATOR);
+
+        if (!hasDiscriminatorColumn) {
+            return em.createQuery("select e." + idAttribute + ", type(e) from " + entityName(rootType)
+                    + " e where e." + idAttribute + " in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        }
+
+        String idColumn = persister.getIdentifierColumnNames()[0];
+        List<Object[]> rows = em.createNativeQuery("select " + idColumn + ", " + discriminatorColumn
+                + " from " + persister.getTableName() + " where " + idColumn + " in (:ids)")
+            .setParameter("ids", ids)
+            .getResultList();
+        for (Object[] row : rows) {
+            row[0] = toIdType(row[0]);
+            String entityName = persister.getSubclassForDiscriminatorValue(row[1]);
+            row[1] = persister.getFactory().getMetamodel().entityPersister(entityName).getMappedClass();
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Class<? extends T>> concreteSubtypes() {
+        List<Class<? extends T>> subtypes = new ArrayList<>();
+        for (EntityType<?> entityType : em.getMetamodel().getEntities()) {
+            Class<?> javaType = entityType.getJavaType();
+            if (rootType.isAssignableFrom(javaType) && !Modifier.isAbstract(javaType.getModifiers())) {
+                subtypes.add((Class<? extends T>) javaType);
+            }
+        }
+        subtypes.sort(Comparator.comparing(Class::getName));
+        return subtypes;
+    }
+
+    // 자식 엔티티가 있는 구체 타입에서 그 타입인 행만
+    private <S extends T> List<S> findExactly(Class<S> type) {
+        return em.createQuery("select e from " + entityName(type) + " e where type(e) = :type", type)
+            .setParameter("type", type)
+            .getResultList();
+    }
+
+    private static boolean isLeaf(Class<?> type, List<? extends Class<?>> types) {
+        for (Class<?> other : types) {
+            if (other != type && type.isAssignableFrom(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object toIdType(Object id) {
+        if (idType.isInstance(id)) {
+            return id;
+        }
+        if (id instanceof Number) {
+            long value = ((Number) id).longValue();
+            if (idType == Long.class || idType == long.class) {
+                return value;
+            }
+            if ((idType == Integer.class || idType == int.class) && value == (int) value) {
+                return (int) value;
+            }
+            if ((idType == Short.class || idType == short.class) && value == (short) value) {
+                return (short) value;
+            }
+        }
+        throw new IllegalArgumentException("id " + id + " (" + id.getClass().getName() + ") is not a " + idType.getName());
+    }
+
+    private String entityName(Class<?> type) {
+        return em.getMetamodel().entity(type).getName();
+    }
+
+}
@@ -0,0 +1,464 @@
+package jpabook.jpashop.schema;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import jpabook.jpashop.sql.InstrumentedConnectionProvider;
+import jpabook.jpashop.sql.QueryStats;
+import jpabook.jpashop.sql.SqlStatistics;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.collection.QueryableCollection;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.hibernate.type.ManyToOneType;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 매핑과 쿼리를 보고 필요한 인덱스를 제안한다. 어떤 영속성 유닛에도 쓸 수 있다.
+ * <ul>
+ *   <li>매핑: 외래 키(@ManyToOne, @OneToOne 의 조인 컬럼), 조인 테이블과 컬렉션 테이블의 키 컬럼</li>
+ *   <li>쿼리: @NamedQuery, {@link #addQuery} 로 넘긴 JPQL, 하이버네이트 통계(hibernate.generate_statistics)에 기록된 JPQL,
+ *       {@link InstrumentedConnectionProvider} 를 쓰면 {@link SqlStatistics} 에 기록된 SQL.
+ *       SQL 로 번역되지 않는 쿼리(통계에 기록된 네이티브 SQL 포함)는 로그만 남기고 건너뛴다.
+ *       JPQL 은 SQL 로 번역한 뒤 테이블마다 where 절의 등호 조건 컬럼, 범위 조건 컬럼(또는 order by 컬럼) 순서로
+ *       복합 인덱스를 만든다. select 절이 그 테이블의 컬럼 몇 개뿐이면 뒤에 붙여서 커버링 인덱스로 만든다.</li>
+ * </ul>
+ * DB 에 이미 있는 인덱스(기본 키, H2 가 외래 키마다 만드는 인덱스 포함)가 같은 컬럼으로 시작하면 제안하지 않는다.
+ * 기록된 실행 시간이 긴 순서로 돌려준다.
+ * <p>
+ * {@link #writeDdl} 로 쓴 파일은 hbm2ddl 이 테이블을 만든 뒤 실행하도록
+ * {@code hibernate.hbm2ddl.import_files} 에 지정할 수 있다.
+ *
+ * <pre>{@code
+ * List<IndexProposal> proposals = new IndexAdvisor(emf).advise();
+ * IndexAdvisor.writeDdl(proposals, writer);
+ * }</pre>
+ */
+public class IndexAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    // 커버링 인덱스의 최대 컬럼 수. 엔티티를 조회하는 쿼리는 컬럼이 많아서 커버링 대상이 아니다.
+    private static final int MAX_COVERING_COLUMNS = 4;
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern TABLE = Pattern.compile(
+        "\\b(?:FROM|JOIN|UPDATE)\\s+(\\w+)(?:\\s+(?:AS\\s+)?(?!(?:WHERE|SET|LEFT|RIGHT|INNER|CROSS|OUTER|JOIN|ON|ORDER"
+            + "|GROUP|HAVING|LIMIT|OFFSET|FETCH|FOR|UNION)\\b)(\\w+))?");
+    private static final Pattern PREDICATE = Pattern.compile(
+        "(?<![\\w.?'])(?:(\\w+)\\.)?(\\w+)\\s*(<>|!=|>=|<=|=|>|<|\\bNOT\\s+IN\\b|\\bIN\\b|\\bBETWEEN\\b|\\bLIKE\\b|\\bIS\\b)"
+            + "\\s*(\\w+\\.\\w+)?");
+    private static final Pattern COLUMN = Pattern.compile("(?<![\\w.])(?:(\\w+)\\.)?([A-Z_]\\w*)(?![\\w(])");
+    private static final Pattern COLUMN_ALIAS = Pattern.compile("\\s+AS\\s+\\w+");
+    private static final Set<String> KEYWORDS = new LinkedHashSet<>(Arrays.asList(
+        "AND", "OR", "NOT", "NULL", "IS", "IN", "LIKE", "BETWEEN", "ASC", "DESC", "AS", "DISTINCT", "CASE", "WHEN",
+        "THEN", "ELSE", "END", "EXISTS", "SELECT", "FROM", "WHERE", "TRUE", "FALSE", "NULLS", "FIRST", "LAST"));
+
+    private final EntityManagerFactory emf;
+    private final SessionFactoryImplementor sessionFactory;
+    private final Map<String, String> queries = new LinkedHashMap<>();
+
+    public IndexAdvisor(EntityManagerFactory emf) {
+        this.emf = emf;
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * 통계에 아직 기록되지 않았지만 실행될 JPQL 을 추가한다.
+     */
+    public IndexAdvisor addQuery(String name, String jpql) {
+        queries.put(name, jpql);
+        return this;
+    }
+
+    public List<IndexProposal> advise() {
+        Map<String, IndexProposal> proposals = new LinkedHashMap<>();
+
+        adviseForeignKeys(proposals);
+
+        Map<String, String> jpql = new LinkedHashMap<>(findNamedQueries());
+        jpql.putAll(queries);
+        for (Map.Entry<String, String> entry : jpql.entrySet()) {
+            for (String sql : translate(entry.getValue(), false)) {
+                adviseForSql(proposals, "query " + entry.getKey(), sql, 0, 0);
+            }
+        }
+
+        SqlStatistics sqlStatistics = findSqlStatistics();
+        if (sqlStatistics != null) {
+            for (QueryStats stats : sqlStatistics.getQueries()) {
+                adviseForSql(proposals, "recorded " + abbreviate(stats.getOrigin()), stats.getSql(),
+                    stats.getCount(), stats.getTotalMicros());
+            }
+        } else {
+            Statistics statistics = sessionFactory.getStatistics();
+            for (String query : statistics.getQueries()) {
+                QueryStatistics stats = statistics.getQueryStatistics(query);
+                for (String sql : translate(query, true)) {
+                    adviseForSql(proposals, "recorded " + abbreviate(query), sql,
+                        stats.getExecutionCount(), stats.getExecutionTotalTime() * 1000);
+                }
+            }
+        }
+
+        return removeCovered(mergePrefixes(proposals.values()));
+    }
+
+    public static void writeDdl(List<IndexProposal> proposals, Writer writer) throws IOException {
+        for (IndexProposal proposal : proposals) {
+            for (String reason : proposal.getReasons()) {
+                writer.write("-- " + reason.replace('\n', ' ') + "\n");
+            }
+            writer.write(proposal.toDdl() + ";\n");
+        }
+        writer.flush();
+    }
+
+    public void apply(List<IndexProposal> proposals) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (IndexProposal proposal : proposals) {
+                em.createNativeQuery(proposal.toDdl()).executeUpdate();
+            }
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private void adviseForeignKeys(Map<String, IndexProposal> proposals) {
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            String[] names = entityPersister.getPropertyNames();
+            Type[] types = entityPersister.getPropertyTypes();
+            for (int i = 0; i < names.length; i++) {
+                // @OneToOne(mappedBy) 는 OneToOneType 이고 컬럼이 없다.
+                if (!(types[i] instanceof ManyToOneType)) {
+                    continue;
+                }
+                String table = entityPersister.getPropertyTableName(names[i]);
+                propose(proposals, table, Arrays.asList(entityPersister.getPropertyColumnNames(i)), false,
+                    "foreign key " + simpleName(entityPersister.getEntityName()) + "." + names[i], 0, 0);
+            }
+        }
+        for (CollectionPersister persister : sessionFactory.getMetamodel().collectionPersisters().values()) {
+            if (!(persister instanceof QueryableCollection) || persister.isInverse()) {
+                continue;
+            }
+            QueryableCollection collection = (QueryableCollection) persister;
+            String table = collection.getTableName();
+            String reason = "collection " + simpleName(collection.getRole());
+            propose(proposals, table, Arrays.asList(collection.getKeyColumnNames()), false, reason, 0, 0);
+            if (collection.isManyToMany()) {
+                propose(proposals, table, Arrays.asList(collection.getElementColumnNames()), false, reason, 0, 0);
+            }
+        }
+    }
+
+    private void adviseForSql(Map<String, IndexProposal> proposals, String reason, String sql,
+        long executions, long totalMicros) {
+        String statement = COMMENT.matcher(sql).replaceAll(" ").trim().toUpperCase(Locale.ROOT);
+        if (!statement.startsWith("SELECT") && !statement.startsWith("UPDATE") && !statement.startsWith("DELETE")) {
+            return;
+        }
+
+        // 별칭 -> 테이블. 테이블이 하나뿐이면 별칭 없는 컬럼도 그 테이블의 컬럼이다.
+        Map<String, String> aliases = new HashMap<>();
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher tableMatcher = TABLE.matcher(statement);
+        while (tableMatcher.find()) {
+            String table = tableMatcher.group(1);
+            tables.add(table);
+            aliases.put(tableMatcher.group(2) == null ? table : tableMatcher.group(2), table);
+            aliases.putIfAbsent(table, table);
+        }
+        String defaultTable = tables.size() == 1 ? tables.iterator().next() : null;
+
+        int where = indexOfKeyword(statement, " WHERE ", 0);
+        int groupBy = indexOfKeyword(statement, " GROUP BY ", Math.max(where, 0));
+        int orderBy = indexOfKeyword(statement, " ORDER BY ", Math.max(where, 0));
+        int end = firstPositive(indexOfKeyword(statement, " LIMIT ", 0), indexOfKeyword(statement, " OFFSET ", 0),
+            indexOfKeyword(statement, " FETCH ", 0), indexOfKeyword(statement, " FOR UPDATE", 0), statement.length());
+        if (where < 0) {
+            return;
+        }
+        String whereClause = statement.substring(where + 7, firstPositive(groupBy, orderBy, end));
+        String orderClause = orderBy < 0 ? "" : statement.substring(orderBy + 10, end);
+        int from = statement.indexOf(" FROM ");
+        String selectClause = statement.startsWith("SELECT") && from > 0
+            ? COLUMN_ALIAS.matcher(statement.substring(6, from)).replaceAll("") : "";
+
+        Map<String, Set<String>> equalities = new TreeMap<>();
+        Map<String, Set<String>> ranges = new TreeMap<>();
+        Matcher predicate = PREDICATE.matcher(whereClause);
+        while (predicate.find()) {
+            String table = resolve(aliases, defaultTable, predicate.group(1));
+            String column = predicate.group(2);
+            String operator = predicate.group(3).replaceAll("\\s+", " ");
+            // 컬럼끼리 비교(조인 조건), 부정 조건은 인덱스로 범위를 좁히지 못한다.
+            if (table == null || KEYWORDS.contains(column) || predicate.group(4) != null
+                || operator.equals("<>") || operator.equals("!=") || operator.equals("NOT IN")) {
+                continue;
+            }
+            boolean equality = operator.equals("=") || operator.equals("IN") || operator.equals("IS");
+            (equality ? equalities : ranges).computeIfAbsent(table, key -> new LinkedHashSet<>()).add(column);
+        }
+
+        Map<String, List<String>> orderColumns = columnsByTable(orderClause, aliases, defaultTable);
+        Map<String, List<String>> selectColumns = columnsByTable(selectClause, aliases, defaultTable);
+
+        Set<String> filteredTables = new LinkedHashSet<>(equalities.keySet());
+        filteredTables.addAll(ranges.keySet());
+        for (String table : filteredTables) {
+            List<String> key = new ArrayList<>(equalities.getOrDefault(table, Collections.emptySet()));
+            Set<String> range = ranges.getOrDefault(table, Collections.emptySet());
+            List<String> order = orderColumns.getOrDefault(table, Collections.emptyList());
+            boolean orderOnlyThisTable = orderColumns.size() == 1 && !order.isEmpty();
+            if (!range.isEmpty()) {
+                // 범위 조건 뒤의 컬럼은 인덱스로 좁히지 못하므로 첫 번째 범위 컬럼까지만 키로 쓴다.
+                String first = range.iterator().next();
+                if (!key.contains(first)) {
+                    key.add(first);
+                }
+            } else if (orderOnlyThisTable) {
+                // 등호 조건 뒤에 정렬 컬럼을 붙이면 정렬 없이 인덱스 순서로 읽는다.
+                for (String column : order) {
+                    if (!key.contains(column)) {
+                        key.add(column);
+                    }
+                }
+            }
+            if (key.isEmpty()) {
+                continue;
+            }
+            propose(proposals, table, key, false, reason, executions, totalMicros);
+
+            List<String> selected = selectColumns.getOrDefault(table, Collections.emptyList());
+            if (selectColumns.size() == 1 && !selected.isEmpty()) {
+                List<String> covering = new ArrayList<>(key);
+                for (String column : selected) {
+                    if (!covering.contains(column)) {
+                        covering.add(column);
+                    }
+                }
+                if (covering.size() > key.size() && covering.size() <= MAX_COVERING_COLUMNS) {
+                    propose(proposals, table, covering, true, reason, executions, totalMicros);
+                }
+            }
+        }
+    }
+
+    private static Map<String, List<String>> columnsByTable(String clause, Map<String, String> aliases,
+        String defaultTable) {
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        Matcher matcher = COLUMN.matcher(clause);
+        while (matcher.find()) {
+            String column = matcher.group(2);
+            String table = resolve(aliases, defaultTable, matcher.group(1));
+            if (table == null || KEYWORDS.contains(column) || matcher.group(1) == null && aliases.containsKey(column)) {
+                continue;
+            }
+            List<String> list = columns.computeIfAbsent(table, key -> new ArrayList<>());
+            if (!list.contains(column)) {
+                list.add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static void propose(Map<String, IndexProposal> proposals, String table, List<String> columns,
+        boolean covering, String reason, long executions, long totalMicros) {
+        String upperTable = table.toUpperCase(Locale.ROOT);
+        List<String> upperColumns = columns.stream()
+            .map(column -> column.toUpperCase(Locale.ROOT))
+            .collect(Collectors.toList());
+        proposals.computeIfAbsent(upperTable + upperColumns,
+                key -> new IndexProposal(upperTable, upperColumns, covering))
+            .addReason(reason, executions, totalMicros);
+    }
+
+    /**
+     * (a) 를 제안했는데 (a, b) 도 제안했으면 (a, b) 하나로 (a) 를 조회하는 쿼리까지 처리한다.
+     */
+    private static List<IndexProposal> mergePrefixes(Iterable<IndexProposal> proposals) {
+        List<IndexProposal> sorted = new ArrayList<>();
+        proposals.forEach(sorted::add);
+        sorted.sort(Comparator.comparingInt((IndexProposal proposal) -> proposal.getColumns().size()).reversed());
+
+        List<IndexProposal> merged = new ArrayList<>();
+        for (IndexProposal proposal : sorted) {
+            IndexProposal longer = merged.stream()
+                .filter(candidate -> candidate.getTable().equals(proposal.getTable()))
+                .filter(candidate -> candidate.startsWith(proposal.getColumns()))
+                .findFirst()
+                .orElse(null);
+            if (longer == null) {
+                merged.add(proposal);
+            } else {
+                longer.absorb(proposal);
+            }
+        }
+        return merged;
+    }
+
+    private List<IndexProposal> removeCovered(List<IndexProposal> proposals) {
+        Map<String, List<List<String>>> existing = findExistingIndexes(proposals.stream()
+            .map(IndexProposal::getTable)
+            .collect(Collectors.toSet()));
+
+        List<IndexProposal> result = new ArrayList<>();
+        for (IndexProposal proposal : proposals) {
+            boolean covered = existing.getOrDefault(proposal.getTable(), Collections.emptyList()).stream()
+                .anyMatch(index -> index.size() >= proposal.getColumns().size()
+                    && index.subList(0, proposal.getColumns().size()).equals(proposal.getColumns()));
+            if (covered) {
+                log.debug("already indexed: {}", proposal);
+            } else {
+                result.add(proposal);
+            }
+        }
+        result.sort(Comparator.comparingLong(IndexProposal::getTotalMicros)
+            .thenComparingLong(IndexProposal::getExecutions)
+            .reversed());
+        return result;
+    }
+
+    private Map<String, List<List<String>>> findExistingIndexes(Set<String> tables) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.unwrap(Session.class).doReturningWork(connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                Map<String, List<List<String>>> indexes = new HashMap<>();
+                for (String table : tables) {
+                    // 인덱스 이름 -> 컬럼 (ORDINAL_POSITION 순서)
+                    Map<String, List<String>> columns = new LinkedHashMap<>();
+                    try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, true)) {
+                        while (rs.next()) {
+                            String column = rs.getString("COLUMN_NAME");
+                            if (column != null) {
+                                columns.computeIfAbsent(rs.getString("INDEX_NAME"), key -> new ArrayList<>())
+                                    .add(column.toUpperCase(Locale.ROOT));
+                            }
+                        }
+                    }
+                    indexes.put(table, new ArrayList<>(columns.values()));
+                }
+                return indexes;
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    private Map<String, String> findNamedQueries() {
+        Map<String, String> named = new LinkedHashMap<>();
+        for (EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            Class<?> type = entity.getJavaType();
+            List<NamedQuery> annotations = new ArrayList<>(Arrays.asList(type.getAnnotationsByType(NamedQuery.class)));
+            NamedQueries container = type.getAnnotation(NamedQueries.class);
+            if (container != null) {
+                annotations.addAll(Arrays.asList(container.value()));
+            }
+            for (NamedQuery query : annotations) {
+                named.put(query.name(), query.query());
+            }
+        }
+        return named;
+    }
+
+    /**
+     * JPQL 을 SQL 로 번역한다. 번역하지 못하면 건너뛴다. (빈 배열)
+     *
+     * @param recorded 하이버네이트 통계에 기록된 쿼리면 true. 통계에는 네이티브 SQL 도 기록되는데, 어떤 것이 네이티브 SQL 인지
+     *                 알 수 없으므로 번역되지 않는 것은 debug 로만 남긴다. 네이티브 SQL 까지 보려면 InstrumentedConnectionProvider 를 쓴다.
+     */
+    private String[] translate(String jpql, boolean recorded) {
+        try {
+            // 한 번만 번역하므로 쿼리 계획 캐시에 넣지 않는다.
+            return new HQLQueryPlan(jpql, false, Collections.emptyMap(), sessionFactory).getSqlStrings();
+        } catch (HibernateException | IllegalArgumentException e) {
+            if (recorded) {
+                log.debug("skipping recorded query that is not JPQL: {}", abbreviate(jpql));
+            } else {
+                log.warn("skipping query that cannot be translated: {} ({})", abbreviate(jpql), e.getMessage());
+            }
+            return new String[0];
+        }
+    }
+
+    private SqlStatistics findSqlStatistics() {
+        ConnectionProvider connectionProvider = sessionFactory.getServiceRegistry().getService(ConnectionProvider.class);
+        if (connectionProvider instanceof InstrumentedConnectionProvider) {
+            return ((InstrumentedConnectionProvider) connectionProvider).getStatistics();
+        }
+        return null;
+    }
+
+    private static String resolve(Map<String, String> aliases, String defaultTable, String alias) {
+        return alias == null ? defaultTable : aliases.get(alias);
+    }
+
+    private static int indexOfKeyword(String statement, String keyword, int from) {
+        return statement.indexOf(keyword, from);
+    }
+
+    private static int firstPositive(int... positions) {
+        int first = Integer.MAX_VALUE;
+        for (int position : positions) {
+            if (position >= 0 && position < first) {
+                first = position;
+            }
+        }
+        return first;
+    }
+
+    private static String simpleName(String name) {
+        int dot = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+        return dot < 0 ? name : name.substring(dot + 1);
+    }
+
+    private static String abbreviate(String text) {
+        String singleLine = text.replaceAll("\\s+", " ").trim();
+        return singleLine.length() <= 120 ? singleLine : singleLine.substring(0, 117) + "...";
+    }
+
+}
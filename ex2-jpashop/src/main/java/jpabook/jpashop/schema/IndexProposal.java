@@ -0,0 +1,72 @@
+package jpabook.jpashop.schema;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * IndexAdvisor 가 제안하는 인덱스 하나. 테이블, 컬럼 이름은 대문자다.
+ */
+@Getter
+public class IndexProposal {
+
+    private final String table;
+    private final List<String> columns;
+    // 앞쪽 컬럼은 조건에 쓰이고, 뒤쪽 컬럼은 select 절만 덮기 위해 붙인 것이다.
+    private final boolean covering;
+    private final List<String> reasons = new ArrayList<>();
+    private long executions;
+    private long totalMicros;
+
+    IndexProposal(String table, List<String> columns, boolean covering) {
+        this.table = table;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.covering = covering;
+    }
+
+    public List<String> getReasons() {
+        return Collections.unmodifiableList(reasons);
+    }
+
+    public String getName() {
+        String name = "IDX_" + table + "_" + String.join("_", columns);
+        return name.length() <= 64 ? name : name.substring(0, 55) + "_" + Integer.toHexString(name.hashCode());
+    }
+
+    public String toDdl() {
+        return "create index " + getName() + " on " + table + " (" + String.join(", ", columns) + ")";
+    }
+
+    void addReason(String reason, long executions, long totalMicros) {
+        if (!reasons.contains(reason)) {
+            reasons.add(reason);
+        }
+        this.executions += executions;
+        this.totalMicros += totalMicros;
+    }
+
+    void absorb(IndexProposal other) {
+        for (String reason : other.reasons) {
+            addReason(reason, 0, 0);
+        }
+        executions += other.executions;
+        totalMicros += other.totalMicros;
+    }
+
+    boolean startsWith(List<String> prefix) {
+        return prefix.size() <= columns.size() && columns.subList(0, prefix.size()).equals(prefix);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexProposal{" +
+            "ddl='" + toDdl() + '\'' +
+            ", covering=" + covering +
+            ", executions=" + executions +
+            ", totalMicros=" + totalMicros +
+            ", reasons=" + reasons +
+            '}';
+    }
+
+}
@@ -0,0 +1,69 @@
+package jpabook.jpashop.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hikaricp.internal.HikariCPConnectionProvider;
+
+/**
+ * HikariCP 커넥션을 감싸서 실행된 SQL 의 실행 시간, 조회 시간, 행 수를 {@link SqlStatistics} 에 모은다.
+ * persistence.xml 은 HikariCP 를 그대로 쓰고, 계측이 필요할 때 영속성 유닛을 만들면서
+ * hibernate.connection.provider_class 를 이 클래스로 덮어쓴다.
+ *
+ * <pre>{@code
+ * EntityManagerFactory emf = Persistence.createEntityManagerFactory("jpaShop",
+ *     InstrumentedConnectionProvider.enable(new HashMap<>()));
+ * }</pre>
+ * <p>
+ * 한 트랜잭션 안에서 같은 SQL 이 {@value #DEFAULT_REPEATED_STATEMENT_THRESHOLD} 번
+ * (jpabook.sql.repeated_statement_threshold) 이상 실행되면 N+1 로 의심하고 기록한다.
+ */
+public class InstrumentedConnectionProvider extends HikariCPConnectionProvider {
+
+    public static final String REPEATED_STATEMENT_THRESHOLD = "jpabook.sql.repeated_statement_threshold";
+    public static final int DEFAULT_REPEATED_STATEMENT_THRESHOLD = 3;
+
+    private SqlStatistics statistics;
+
+    // 영속성 유닛을 만들 때 넘기는 속성에 이 커넥션 공급자를 지정한다.
+    public static Map<String, Object> enable(Map<String, Object> properties) {
+        properties.put(AvailableSettings.CONNECTION_PROVIDER, InstrumentedConnectionProvider.class.getName());
+        return properties;
+    }
+
+    @Override
+    public void configure(Map props) throws HibernateException {
+        super.configure(props);
+        Object threshold = props.get(REPEATED_STATEMENT_THRESHOLD);
+        statistics = new SqlStatistics(threshold == null
+            ? DEFAULT_REPEATED_STATEMENT_THRESHOLD
+            : Integer.parseInt(threshold.toString()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return JdbcProxies.connection(super.getConnection(), statistics);
+    }
+
+    public SqlStatistics getStatistics() {
+        return statistics;
+    }
+
+    static SqlStatistics statistics(EntityManagerFactory emf) {
+        ConnectionProvider connectionProvider = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        if (!(connectionProvider instanceof InstrumentedConnectionProvider)) {
+            throw new IllegalStateException("hibernate.connection.provider_class is not "
+                + InstrumentedConnectionProvider.class.getName() + " (see InstrumentedConnectionProvider.enable): "
+                + connectionProvider);
+        }
+        return ((InstrumentedConnectionProvider) connectionProvider).statistics;
+    }
+
+}
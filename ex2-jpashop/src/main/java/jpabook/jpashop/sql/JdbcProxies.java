@@ -0,0 +1,237 @@
+package jpabook.jpashop.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection, Statement, ResultSet 을 동적 프록시로 감싸서 실행 시간과 행 수를 잰다.
+ * 커넥션은 한 번에 한 스레드만 쓰므로 프록시 안의 상태는 동기화하지 않는다.
+ */
+final class JdbcProxies {
+
+    private JdbcProxies() {
+    }
+
+    static Connection connection(Connection connection, SqlStatistics statistics) {
+        return proxy(Connection.class, new ConnectionHandler(connection, statistics));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final SqlStatistics statistics;
+        // 현재 트랜잭션에서 SQL 별 실행 횟수
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        ConnectionHandler(Connection target, SqlStatistics statistics) {
+            this.target = target;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                        new StatementHandler(this, (Statement) call(target, method, args), (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                        new StatementHandler(this, (Statement) call(target, method, args), (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class,
+                        new StatementHandler(this, (Statement) call(target, method, args), null));
+                case "commit":
+                case "close":
+                    endTransaction();
+                    return call(target, method, args);
+                case "rollback":
+                    // rollback(Savepoint) 는 트랜잭션을 끝내지 않는다.
+                    if (args == null) {
+                        endTransaction();
+                    }
+                    return call(target, method, args);
+                default:
+                    return call(target, method, args);
+            }
+        }
+
+        void executed(String sql) {
+            // INSERT 배치, 시퀀스 호출은 반복돼도 N+1 이 아니다.
+            if (SqlStatistics.isSelect(sql)) {
+                executions.merge(sql, 1, Integer::sum);
+            }
+            SqlCapture.executed(sql);
+        }
+
+        private void endTransaction() {
+            if (executions.isEmpty()) {
+                return;
+            }
+            executions.forEach((sql, count) -> {
+                if (count >= statistics.getRepeatedStatementThreshold()) {
+                    statistics.recordRepeated(sql, count);
+                }
+            });
+            executions.clear();
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler connection;
+        private final Statement target;
+        private final String preparedSql;
+        private Execution pending;
+
+        StatementHandler(ConnectionHandler connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("getResultSet")) {
+                    return resultSet((ResultSet) call(target, method, args));
+                }
+                if (name.equals("close")) {
+                    finishPending();
+                }
+                return call(target, method, args);
+            }
+
+            // Statement.execute(sql) 계열은 첫 번째 인자가 SQL 이다.
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                sql = "<statement batch>";
+            }
+            finishPending();
+            connection.executed(sql);
+
+            long start = System.nanoTime();
+            Object result = call(target, method, args);
+            long executeNanos = System.nanoTime() - start;
+
+            Execution execution = new Execution(connection.statistics, sql, executeNanos);
+            if (result instanceof ResultSet) {
+                pending = execution;
+                return resultSet((ResultSet) result);
+            }
+            if (result instanceof Boolean && (Boolean) result) {
+                // execute() 의 결과는 getResultSet() 으로 읽는다.
+                pending = execution;
+                return result;
+            }
+            execution.rows = updateCount(result);
+            execution.finish();
+            return result;
+        }
+
+        private Object resultSet(ResultSet resultSet) {
+            if (resultSet == null || pending == null) {
+                return resultSet;
+            }
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, pending));
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+
+        private static long updateCount(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            return 0;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long start = System.nanoTime();
+                    Object hasNext = call(target, method, args);
+                    execution.fetchNanos += System.nanoTime() - start;
+                    if ((Boolean) hasNext) {
+                        execution.rows++;
+                    }
+                    return hasNext;
+                case "close":
+                    execution.finish();
+                    return call(target, method, args);
+                default:
+                    return call(target, method, args);
+            }
+        }
+    }
+
+    private static class Execution {
+
+        private final SqlStatistics statistics;
+        private final String sql;
+        private final long executeNanos;
+        private long fetchNanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(SqlStatistics statistics, String sql, long executeNanos) {
+            this.statistics = statistics;
+            this.sql = sql;
+            this.executeNanos = executeNanos;
+        }
+
+        // ResultSet.close(), Statement.close() 중 먼저 오는 쪽에서 한 번만 기록한다.
+        void finish() {
+            if (!finished) {
+                finished = true;
+                statistics.record(sql, executeNanos, fetchNanos, rows);
+            }
+        }
+    }
+
+}
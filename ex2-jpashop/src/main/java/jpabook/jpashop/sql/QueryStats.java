@@ -0,0 +1,60 @@
+package jpabook.jpashop.sql;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 한 origin 의 SQL 실행 통계. 시간은 마이크로초.
+ */
+@Getter
+@AllArgsConstructor
+public class QueryStats {
+
+    private final String origin;
+    private final String sql;
+    private final long count;
+    private final long rows;
+    private final long executeMicros;
+    // ResultSet.next() 에서 보낸 시간
+    private final long fetchMicros;
+    private final long maxMicros;
+    private final long[] histogram;
+
+    public long getTotalMicros() {
+        return executeMicros + fetchMicros;
+    }
+
+    public double getAverageMicros() {
+        return count == 0 ? 0 : getTotalMicros() / (double) count;
+    }
+
+    /**
+     * 히스토그램으로 추정한 백분위 수(구간의 상한). 예: percentileMicros(0.99)
+     */
+    public long percentileMicros(double percentile) {
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(SqlStatistics.upperBoundMicros(i), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStats{" +
+            "origin='" + origin + '\'' +
+            ", count=" + count +
+            ", rows=" + rows +
+            ", executeMicros=" + executeMicros +
+            ", fetchMicros=" + fetchMicros +
+            ", averageMicros=" + String.format("%.1f", getAverageMicros()) +
+            ", p99Micros=" + percentileMicros(0.99) +
+            ", maxMicros=" + maxMicros +
+            '}';
+    }
+
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.sql;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 한 트랜잭션 안에서 같은 SQL 이 기준 횟수 이상 반복된 기록. 대개 지연 로딩 N+1 이다.
+ * fetch join, 엔티티 그래프, IN 쿼리로 한 번에 가져오도록 고친다.
+ */
+@Getter
+@AllArgsConstructor
+public class RepeatedStatement {
+
+    private final String origin;
+    private final String sql;
+    // 반복이 발견된 트랜잭션 수
+    private final long transactions;
+    // 한 트랜잭션에서 가장 많이 반복된 횟수
+    private final int maxRepeats;
+
+    @Override
+    public String toString() {
+        return "RepeatedStatement{" +
+            "origin='" + origin + '\'' +
+            ", transactions=" + transactions +
+            ", maxRepeats=" + maxRepeats +
+            '}';
+    }
+
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 실행된 SQL 을 모아서 실행 횟수를 검사한다.
+ * {@link InstrumentedConnectionProvider} 를 쓰는 영속성 유닛에서만 SQL 이 잡힌다.
+ *
+ * <pre>{@code
+ * List<Order> orders = SqlCapture.expectAtMost(3, () -> orderQueries.findRecentOrders(plan, page));
+ *
+ * try (SqlCapture capture = SqlCapture.start()) {
+ *     ...
+ *     capture.expectAtMost(3);
+ * }
+ * }</pre>
+ */
+public final class SqlCapture implements AutoCloseable {
+
+    private static final ThreadLocal<SqlCapture> CURRENT = new ThreadLocal<>();
+
+    private final SqlCapture outer;
+    private final List<String> statements = new ArrayList<>();
+
+    private SqlCapture(SqlCapture outer) {
+        this.outer = outer;
+    }
+
+    public static SqlCapture start() {
+        SqlCapture capture = new SqlCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    public static <T> T expectAtMost(int maxStatements, Supplier<T> work) {
+        try (SqlCapture capture = start()) {
+            T result = work.get();
+            capture.expectAtMost(maxStatements);
+            return result;
+        }
+    }
+
+    static void executed(String sql) {
+        // 바깥 캡처에도 함께 센다.
+        for (SqlCapture capture = CURRENT.get(); capture != null; capture = capture.outer) {
+            capture.statements.add(sql);
+        }
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public void expectAtMost(int maxStatements) {
+        if (statements.size() > maxStatements) {
+            StringBuilder message = new StringBuilder()
+                .append("expected at most ").append(maxStatements)
+                .append(" statements but was ").append(statements.size()).append(':');
+            for (String sql : statements) {
+                message.append("\n  ").append(SqlStatistics.origin(sql));
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package jpabook.jpashop.sql;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link InstrumentedConnectionProvider} 가 모은 SQL 통계.
+ * <p>
+ * 통계는 SQL 을 만든 쿼리(origin)별로 모은다. hibernate.use_sql_comments 를 켜면
+ * 하이버네이트가 SQL 앞에 붙이는 주석(JPQL, "load jpabook.jpashop.domain.Member" 등)이 origin 이 되고,
+ * 주석이 없으면(컬렉션 지연 로딩 등) SQL 자체가 origin 이다.
+ * N+1 은 SELECT 만 검사한다.
+ * 실행 시간 + 조회 시간은 2 의 거듭제곱 마이크로초 구간의 히스토그램으로 센다.
+ *
+ * <pre>{@code
+ * SqlStatistics statistics = SqlStatistics.of(emf);
+ * statistics.getQueries().forEach(System.out::println);
+ * statistics.getRepeatedStatements().forEach(System.out::println);
+ * }</pre>
+ */
+public class SqlStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatistics.class);
+
+    // 구간 i 는 [2^(i-1), 2^i) 마이크로초, 마지막 구간은 그 이상 전부
+    static final int BUCKETS = 25;
+
+    private final int repeatedStatementThreshold;
+    private final ConcurrentMap<String, QueryAccumulator> queries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RepeatedAccumulator> repeated = new ConcurrentHashMap<>();
+
+    SqlStatistics(int repeatedStatementThreshold) {
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    public static SqlStatistics of(EntityManagerFactory emf) {
+        return InstrumentedConnectionProvider.statistics(emf);
+    }
+
+    public int getRepeatedStatementThreshold() {
+        return repeatedStatementThreshold;
+    }
+
+    // 전체 실행 시간이 긴 순서
+    public List<QueryStats> getQueries() {
+        return queries.entrySet().stream()
+            .map(entry -> entry.getValue().snapshot(entry.getKey()))
+            .sorted(Comparator.comparingLong(QueryStats::getTotalMicros).reversed())
+            .collect(Collectors.toList());
+    }
+
+    public QueryStats getQuery(String origin) {
+        QueryAccumulator accumulator = queries.get(origin);
+        return accumulator == null ? null : accumulator.snapshot(origin);
+    }
+
+    // 반복 횟수가 많은 순서
+    public List<RepeatedStatement> getRepeatedStatements() {
+        return repeated.entrySet().stream()
+            .map(entry -> entry.getValue().snapshot(entry.getKey()))
+            .sorted(Comparator.comparingInt(RepeatedStatement::getMaxRepeats).reversed())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * 히스토그램을 CSV(origin,le_micros,count)로 내보낸다. le_micros 는 구간의 상한이고 마지막 구간은 +Inf 이다.
+     */
+    public void writeHistogram(Writer writer) throws IOException {
+        writer.write("origin,le_micros,count\n");
+        for (QueryStats query : getQueries()) {
+            String origin = '"' + query.getOrigin().replace("\"", "\"\"") + '"';
+            long[] histogram = query.getHistogram();
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    writer.write(origin + ',' + upperBoundLabel(i) + ',' + histogram[i] + '\n');
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    public void reset() {
+        queries.clear();
+        repeated.clear();
+    }
+
+    void record(String sql, long executeNanos, long fetchNanos, long rows) {
+        queries.computeIfAbsent(origin(sql), origin -> new QueryAccumulator(sql))
+            .add(executeNanos, fetchNanos, rows);
+    }
+
+    void recordRepeated(String sql, int count) {
+        RepeatedAccumulator accumulator = repeated.computeIfAbsent(sql, key -> {
+            log.warn("same statement executed {} times in one transaction (N+1?): {}", count, origin(key));
+            return new RepeatedAccumulator(sql);
+        });
+        accumulator.add(count);
+    }
+
+    static String origin(String sql) {
+        if (sql.startsWith("/*")) {
+            int end = sql.indexOf("*/");
+            if (end > 0) {
+                return sql.substring(2, end).trim();
+            }
+        }
+        return sql;
+    }
+
+    static boolean isSelect(String sql) {
+        int start = sql.startsWith("/*") ? sql.indexOf("*/") + 2 : 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, "select".length());
+    }
+
+    static int bucket(long micros) {
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static long upperBoundMicros(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    private static String upperBoundLabel(int bucket) {
+        return bucket == BUCKETS - 1 ? "+Inf" : String.valueOf(upperBoundMicros(bucket));
+    }
+
+    private static class QueryAccumulator {
+
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        QueryAccumulator(String sql) {
+            this.sql = sql;
+        }
+
+        void add(long executeNanos, long fetchNanos, long rows) {
+            long totalNanos = executeNanos + fetchNanos;
+            this.count.increment();
+            this.rows.add(rows);
+            this.executeNanos.add(executeNanos);
+            this.fetchNanos.add(fetchNanos);
+            this.maxNanos.accumulateAndGet(totalNanos, Math::max);
+            this.histogram.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(totalNanos)));
+        }
+
+        QueryStats snapshot(String origin) {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = histogram.get(i);
+            }
+            return new QueryStats(origin, sql, count.sum(), rows.sum(),
+                TimeUnit.NANOSECONDS.toMicros(executeNanos.sum()),
+                TimeUnit.NANOSECONDS.toMicros(fetchNanos.sum()),
+                TimeUnit.NANOSECONDS.toMicros(maxNanos.get()),
+                buckets);
+        }
+    }
+
+    private static class RepeatedAccumulator {
+
+        private final String origin;
+        private final LongAdder transactions = new LongAdder();
+        private final AtomicInteger maxRepeats = new AtomicInteger();
+
+        RepeatedAccumulator(String sql) {
+            this.origin = origin(sql);
+        }
+
+        void add(int repeats) {
+            transactions.increment();
+            maxRepeats.accumulateAndGet(repeats, Math::max);
+        }
+
+        RepeatedStatement snapshot(String sql) {
+            return new RepeatedStatement(origin, sql, transactions.sum(), maxRepeats.get());
+        }
+    }
+
+}
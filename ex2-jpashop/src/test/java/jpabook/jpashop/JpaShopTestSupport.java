@@ -0,0 +1,79 @@
+package jpabook.jpashop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+
+/**
+ * 테스트마다 jpaShop 영속성 유닛을 tcp 서버 대신 새 인메모리 H2 로 띄운다.
+ */
+public final class JpaShopTestSupport {
+
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private JpaShopTestSupport() {
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory() {
+        return createEntityManagerFactory(new HashMap<>());
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url",
+            "jdbc:h2:mem:jpashop-test" + DATABASE_SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.use_sql_comments", "false");
+        properties.putAll(overrides);
+        return Persistence.createEntityManagerFactory("jpaShop", properties);
+    }
+
+    public static Member newMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("city", "street", "10000"));
+        return member;
+    }
+
+    public static Book newBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        book.setAuthor("author");
+        book.setIsbn("isbn");
+        return book;
+    }
+
+    public static void inTransaction(EntityManagerFactory emf, Consumer<EntityManager> work) {
+        inTransaction(emf, em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    public static <T> T inTransaction(EntityManagerFactory emf, Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package jpabook.jpashop.archive;
+
+import static jpabook.jpashop.JpaShopTestSupport.createEntityManagerFactory;
+import static jpabook.jpashop.JpaShopTestSupport.inTransaction;
+import static jpabook.jpashop.JpaShopTestSupport.newBook;
+import static jpabook.jpashop.JpaShopTestSupport.newMember;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.cdc.ChangeCaptureListener;
+import jpabook.jpashop.cdc.ChangeEvent;
+import jpabook.jpashop.cdc.ChangePublisher;
+import jpabook.jpashop.cdc.ChangeType;
+import jpabook.jpashop.cdc.InMemoryChangeSink;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.query.OrderRangeQueries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 보관한 주문이 주문상품, 배송까지 그대로 남고, id 와 기간으로 보관 전과 똑같이 조회되는지 검사한다.
+ */
+class OrderArchiverTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final int MONTHS = 6;
+    private static final int ORDERS_PER_MONTH = 3;
+
+    private EntityManagerFactory emf;
+    private List<Long> orderIds;
+
+    @BeforeEach
+    void setUp() {
+        emf = createEntityManagerFactory();
+        orderIds = new ArrayList<>();
+        inTransaction(emf, em -> {
+            Member member = newMember("member");
+            em.persist(member);
+            Book first = newBook("first", 10000, 100);
+            Book second = newBook("second", 20000, 100);
+            em.persist(first);
+            em.persist(second);
+
+            for (int month = 0; month < MONTHS; month++) {
+                for (int i = 0; i < ORDERS_PER_MONTH; i++) {
+                    Delivery delivery = new Delivery();
+                    delivery.setAddress(new Address("city" + i, "street" + month, "1000" + i));
+                    delivery.setDeliveryStatus(i == 0 ? DeliveryStatus.COMP : DeliveryStatus.READY);
+
+                    Order order = new Order();
+                    order.setMember(member);
+                    order.setDelivery(delivery);
+                    order.setOrderDate(NOW.minusMonths(month).minusDays(i));
+                    order.setStatus(i == 0 ? OrderStatus.CANCEL : OrderStatus.ORDER);
+                    order.addOrderItem(newOrderItem(first, 10000, 1 + i));
+                    order.addOrderItem(newOrderItem(second, 20000, 2));
+                    em.persist(order);
+                    orderIds.add(order.getId());
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        emf.close();
+    }
+
+    @Test
+    void archivedOrdersKeepItemsAndDeliveryAndAreFoundById() {
+        List<String> before = describeOrders();
+        Map<OrderStatus, Long> countsBefore = countByStatus();
+
+        long archived;
+        try (OrderArchiver archiver = new OrderArchiver(emf, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 2, 2)) {
+            archived = archiver.archiveClosedMonths().stream().mapToLong(ArchiveResult::getArchivedOrders).sum();
+        }
+
+        assertEquals(3 * ORDERS_PER_MONTH, archived);
+        inTransaction(emf, em -> {
+            assertEquals(3 * ORDERS_PER_MONTH, ((Number) em.createNativeQuery("select count(*) from ORDERS")
+                .getSingleResult()).intValue());
+            assertEquals(3 * ORDERS_PER_MONTH * 2, ((Number) em.createNativeQuery(
+                "select count(*) from ORDER_ITEM_ARCHIVE").getSingleResult()).intValue());
+            assertEquals(3 * ORDERS_PER_MONTH, ((Number) em.createNativeQuery(
+                "select count(*) from DELIVERY_ARCHIVE").getSingleResult()).intValue());
+        });
+        assertEquals(before, describeOrders());
+        assertEquals(countsBefore, countByStatus());
+    }
+
+    @Test
+    void publishesOneEventPerChunk() throws Exception {
+        InMemoryChangeSink sink = new InMemoryChangeSink();
+        int chunks;
+        try (ChangePublisher publisher = new ChangePublisher(sink);
+             OrderArchiver archiver = new OrderArchiver(emf, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 2, 2)) {
+            archiver.addListener(ChangeCaptureListener.archivedChunks(publisher));
+            chunks = archiver.archiveClosedMonths().stream().mapToInt(ArchiveResult::getChunks).sum();
+            assertTrue(sink.await(chunks, 5, TimeUnit.SECONDS));
+        }
+
+        // 한 달 3 건을 2 건씩 옮기므로 달마다 chunk 2 개
+        assertEquals(3 * 2, chunks);
+        assertEquals(chunks, sink.size());
+        Set<Long> published = new HashSet<>();
+        for (ChangeEvent event : sink.getEvents()) {
+            assertEquals(ChangeType.ARCHIVE, event.getType());
+            assertEquals("Order", event.getEntity());
+            for (Object orderId : (List<?>) event.getChanges().get("orderIds")) {
+                assertTrue(published.add((Long) orderId), "published twice: " + orderId);
+            }
+        }
+        assertEquals(new HashSet<>(orderIds.subList(3 * ORDERS_PER_MONTH, MONTHS * ORDERS_PER_MONTH)), published);
+    }
+
+    @Test
+    void hotOrdersStayWritable() {
+        try (OrderArchiver archiver = new OrderArchiver(emf, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 2)) {
+            archiver.archiveClosedMonths();
+        }
+        Long hotOrderId = orderIds.get(0);
+        inTransaction(emf, em -> {
+            Order order = em.find(Order.class, hotOrderId);
+            order.setStatus(OrderStatus.CANCEL);
+            order.getDelivery().setDeliveryStatus(DeliveryStatus.COMP);
+            order.getOrderItems().get(0).setCount(7);
+        });
+        inTransaction(emf, em -> {
+            Order order = em.find(Order.class, hotOrderId);
+            assertEquals(OrderStatus.CANCEL, order.getStatus());
+            assertEquals(DeliveryStatus.COMP, order.getDelivery().getDeliveryStatus());
+            assertEquals(7, order.getOrderItems().get(0).getCount());
+        });
+    }
+
+    // 주문마다 id 로 찾아서 주문, 주문상품, 배송을 문자열로 만든다.
+    private List<String> describeOrders() {
+        return inTransaction(emf, em -> {
+            List<String> descriptions = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                Order order = em.find(Order.class, orderId);
+                assertNotNull(order, "order " + orderId);
+                StringBuilder description = new StringBuilder()
+                    .append(order.getId()).append(' ')
+                    .append(order.getMember().getId()).append(' ')
+                    .append(order.getOrderDate()).append(' ')
+                    .append(order.getStatus()).append(' ')
+                    .append(order.getVersion()).append(' ')
+                    .append(order.getDelivery().getAddress().getStreet()).append(' ')
+                    .append(order.getDelivery().getDeliveryStatus());
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    description.append(' ').append(orderItem.getItem().getName())
+                        .append('x').append(orderItem.getCount())
+                        .append('@').append(orderItem.getOrderPrice());
+                }
+                descriptions.add(description.toString());
+            }
+            em.clear();
+            return descriptions;
+        });
+    }
+
+    private Map<OrderStatus, Long> countByStatus() {
+        return inTransaction(emf, em -> {
+            return new OrderRangeQueries(em).countByStatus(NOW.minusYears(1), NOW.plusDays(1));
+        });
+    }
+
+    private static OrderItem newOrderItem(Book book, int price, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(book);
+        orderItem.setOrderPrice(price);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
+}
@@ -0,0 +1,100 @@
+package jpabook.jpashop.cdc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jpabook.jpashop.cdc.ChangePublisher.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 큐가 가득 찼을 때 BLOCK 으로 기다리는 스레드가 자리가 나면 넣고, 기다리는 동안 close 를 막지 않는지 검사한다.
+ */
+class ChangePublisherTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private InMemoryChangeSink delivered;
+    private ChangePublisher publisher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        delivered = new InMemoryChangeSink();
+        // 첫 묶음에서 release 까지 멈추는 sink. 용량 1 큐라서 두 번째 이벤트로 큐가 찬다.
+        ChangeSink sink = batch -> {
+            entered.countDown();
+            release.await();
+            delivered.accept(batch);
+        };
+        publisher = new ChangePublisher(sink, 1, 1, OverflowPolicy.BLOCK, 30, TimeUnit.SECONDS);
+        assertTrue(publish());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertTrue(publish());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        publisher.close();
+    }
+
+    @Test
+    void blockedPublisherEnqueuesWhenSpaceFrees() throws Exception {
+        CompletableFuture<Boolean> blocked = publishAndWait();
+
+        release.countDown();
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        assertTrue(delivered.await(3, 5, TimeUnit.SECONDS));
+        List<Long> sequences = new ArrayList<>();
+        for (ChangeEvent event : delivered.getEvents()) {
+            sequences.add(event.getSequence());
+        }
+        assertEquals(List.of(1L, 2L, 3L), sequences);
+    }
+
+    @Test
+    void blockedPublisherDoesNotHoldUpClose() throws Exception {
+        CompletableFuture<Boolean> blocked = publishAndWait();
+
+        // 기다리는 스레드가 잠금을 쥐고 있으면 close 는 offerTimeout(30 초)이 지나야 닫힌다.
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(() -> {
+            try {
+                publisher.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertFalse(blocked.get(5, TimeUnit.SECONDS));
+        assertEquals(1, publisher.getDropped());
+
+        release.countDown();
+        closing.get(5, TimeUnit.SECONDS);
+        assertEquals(2, delivered.size());
+    }
+
+    private boolean publish() {
+        return publisher.publish(ChangeType.UPDATE, "Item", 1L, Collections.singletonMap("stockQuantity", 1));
+    }
+
+    // 큐가 찬 상태에서 다른 스레드가 발행하고, 그 스레드가 기다리기 시작할 때까지 기다린다.
+    private CompletableFuture<Boolean> publishAndWait() throws InterruptedException {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> result.complete(publish()), "blocked-publisher");
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+        return result;
+    }
+
+}
@@ -0,0 +1,157 @@
+package jpabook.jpashop.order;
+
+import static jpabook.jpashop.JpaShopTestSupport.createEntityManagerFactory;
+import static jpabook.jpashop.JpaShopTestSupport.inTransaction;
+import static jpabook.jpashop.JpaShopTestSupport.newBook;
+import static jpabook.jpashop.JpaShopTestSupport.newMember;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.NotEnoughStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 여러 스레드가 같은 상품을 동시에 주문해도 재고 차감이 사라지지 않는지(갱신 손실) 검사한다.
+ */
+class OrderPlacementServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 1_000_000;
+
+    private EntityManagerFactory emf;
+    private Long memberId;
+    private List<Long> itemIds;
+
+    @BeforeEach
+    void setUp() {
+        emf = createEntityManagerFactory();
+        itemIds = new ArrayList<>();
+        inTransaction(emf, em -> {
+            Member member = newMember("member");
+            em.persist(member);
+            memberId = member.getId();
+            for (int i = 0; i < 2; i++) {
+                Book book = newBook("hot" + i, 10000, INITIAL_STOCK);
+                em.persist(book);
+                itemIds.add(book.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        emf.close();
+    }
+
+    @Test
+    void concurrentOrdersLoseNoStockUpdates() throws Exception {
+        // 충돌이 많아도 포기하지 않도록 시도 횟수를 넉넉히 준다.
+        OrderPlacementService service = new OrderPlacementService(emf, 1000, 1);
+        AtomicLongArray ordered = new AtomicLongArray(itemIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        // 두 상품을 임의 순서로 담아도 서비스가 id 순서로 차감한다.
+                        Map<Long, Integer> itemCounts = new LinkedHashMap<>();
+                        List<Integer> indexes = new ArrayList<>(List.of(0, 1));
+                        Collections.shuffle(indexes);
+                        for (int index : indexes) {
+                            itemCounts.put(itemIds.get(index), ThreadLocalRandom.current().nextInt(1, 4));
+                        }
+                        service.placeOrder(memberId, itemCounts);
+                        for (int index : indexes) {
+                            ordered.addAndGet(index, itemCounts.get(itemIds.get(index)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PlacementStats stats = service.getStats();
+        assertEquals(THREADS * ORDERS_PER_THREAD, stats.getPlacedOrders());
+        assertEquals(0, stats.getAbandoned());
+        inTransaction(emf, em -> {
+            assertEquals(THREADS * ORDERS_PER_THREAD,
+                em.createQuery("select count(o) from Order o", Long.class).getSingleResult().intValue());
+            for (int i = 0; i < itemIds.size(); i++) {
+                Long itemId = itemIds.get(i);
+                Item item = em.find(Item.class, itemId);
+                Long orderItemCounts = em.createQuery(
+                        "select sum(oi.count) from OrderItem oi where oi.item.id = :itemId", Long.class)
+                    .setParameter("itemId", itemId)
+                    .getSingleResult();
+                assertEquals(ordered.get(i), INITIAL_STOCK - item.getStockQuantity(), "sold of item " + itemId);
+                assertEquals(ordered.get(i), orderItemCounts.longValue(), "ordered of item " + itemId);
+            }
+        });
+    }
+
+    @Test
+    void outOfStockRollsBackOrder() {
+        OrderPlacementService service = new OrderPlacementService(emf);
+        Long itemId = inTransaction(emf, em -> {
+            Book book = newBook("rare", 10000, 2);
+            em.persist(book);
+            return book.getId();
+        });
+
+        Map<Long, Integer> itemCounts = new LinkedHashMap<>();
+        itemCounts.put(itemIds.get(0), 1);
+        itemCounts.put(itemId, 3);
+        assertThrows(NotEnoughStockException.class, () -> service.placeOrder(memberId, itemCounts));
+
+        inTransaction(emf, em -> {
+            assertEquals(0L, em.createQuery("select count(o) from Order o", Long.class).getSingleResult());
+            assertEquals(INITIAL_STOCK, em.find(Item.class, itemIds.get(0)).getStockQuantity());
+            assertEquals(2, em.find(Item.class, itemId).getStockQuantity());
+        });
+    }
+
+    @Test
+    void rejectsNonPositiveCount() {
+        OrderPlacementService service = new OrderPlacementService(emf);
+        assertThrows(IllegalArgumentException.class,
+            () -> service.placeOrder(memberId, Collections.singletonMap(itemIds.get(0), 0)));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.placeOrder(memberId, Collections.singletonMap(itemIds.get(0), -1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.placeOrder(memberId, Collections.emptyMap()));
+
+        inTransaction(emf, em -> {
+            assertEquals(0L, em.createQuery("select count(o) from Order o", Long.class).getSingleResult());
+            assertEquals(INITIAL_STOCK, em.find(Item.class, itemIds.get(0)).getStockQuantity());
+        });
+    }
+
+}
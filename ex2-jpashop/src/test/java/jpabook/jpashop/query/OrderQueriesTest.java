@@ -0,0 +1,142 @@
+package jpabook.jpashop.query;
+
+import static jpabook.jpashop.JpaShopTestSupport.createEntityManagerFactory;
+import static jpabook.jpashop.JpaShopTestSupport.inTransaction;
+import static jpabook.jpashop.JpaShopTestSupport.newBook;
+import static jpabook.jpashop.JpaShopTestSupport.newMember;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 주문 목록을 읽고 회원, 배송, 주문상품, 상품까지 모두 접근했을 때 실행되는 SQL 수를 fetch plan 별로 검사한다.
+ */
+class OrderQueriesTest {
+
+    private static final int ORDERS = 5;
+    private static final int ITEMS_PER_ORDER = 2;
+
+    private static EntityManagerFactory emf;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.generate_statistics", "true");
+        overrides.put("hibernate.session.events.log", "false");
+        // 2차 캐시에 적중하면 상품 조회 SQL 수가 실행 순서에 따라 달라진다.
+        overrides.put("hibernate.cache.use_second_level_cache", "false");
+        overrides.put("hibernate.cache.use_query_cache", "false");
+        emf = createEntityManagerFactory(overrides);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        inTransaction(emf, em -> {
+            LocalDateTime orderDate = LocalDateTime.of(2020, 1, 1, 0, 0);
+            for (int i = 0; i < ORDERS; i++) {
+                Member member = newMember("member" + i);
+                em.persist(member);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                delivery.setDeliveryStatus(DeliveryStatus.READY);
+
+                Order order = new Order();
+                order.setMember(member);
+                order.setDelivery(delivery);
+                order.setOrderDate(orderDate.plusDays(i));
+                order.setStatus(OrderStatus.ORDER);
+                for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                    Book book = newBook("book" + i + "-" + j, 1000, 10);
+                    em.persist(book);
+
+                    OrderItem orderItem = new OrderItem();
+                    orderItem.setItem(book);
+                    orderItem.setOrderPrice(book.getPrice());
+                    orderItem.setCount(1);
+                    order.addOrderItem(orderItem);
+                }
+                em.persist(order);
+            }
+        });
+    }
+
+    @AfterAll
+    static void tearDown() {
+        emf.close();
+    }
+
+    @Test
+    void orderOnlyLoadsEveryAssociationLazily() {
+        // 주문 1 + 주문마다 회원 1, 배송 1, 주문상품 1 + 상품마다 1
+        assertEquals(1 + ORDERS * 3 + ORDERS * ITEMS_PER_ORDER, countStatements(OrderFetchPlan.ORDER_ONLY));
+    }
+
+    @Test
+    void withMemberAndDeliveryLoadsOnlyCollectionsLazily() {
+        // 주문 + 회원 + 배송 1 + 주문마다 주문상품 1 + 상품마다 1
+        assertEquals(1 + ORDERS + ORDERS * ITEMS_PER_ORDER,
+            countStatements(OrderFetchPlan.WITH_MEMBER_AND_DELIVERY));
+    }
+
+    @Test
+    void fullAggregateLoadsEverythingWithTwoStatements() {
+        assertEquals(2, countStatements(OrderFetchPlan.FULL_AGGREGATE));
+    }
+
+    @Test
+    void readOnlyQueriesRunTheSameStatements() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            statistics.clear();
+            List<Order> orders = new OrderQueries(em).readOnly()
+                .findRecentOrders(OrderFetchPlan.FULL_AGGREGATE, PageRequest.of(0, ORDERS));
+            touch(orders);
+            assertEquals(ORDERS, orders.size());
+            assertEquals(2, statistics.getPrepareStatementCount());
+        } finally {
+            em.close();
+        }
+    }
+
+    // 주문 목록을 읽고 연관관계를 모두 접근하는 동안 준비된 SQL 수
+    private static long countStatements(OrderFetchPlan fetchPlan) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            statistics.clear();
+            List<Order> orders = new OrderQueries(em).findRecentOrders(fetchPlan, PageRequest.of(0, ORDERS));
+            assertEquals(ORDERS, orders.size());
+            touch(orders);
+            return statistics.getPrepareStatementCount();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void touch(List<Order> orders) {
+        for (Order order : orders) {
+            order.getMember().getName();
+            order.getDelivery().getDeliveryStatus();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                orderItem.getItem().getName();
+            }
+        }
+    }
+
+}
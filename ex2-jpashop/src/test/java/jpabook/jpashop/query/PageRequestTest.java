@@ -0,0 +1,22 @@
+package jpabook.jpashop.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class PageRequestTest {
+
+    @Test
+    void offsetIsPageTimesSize() {
+        assertEquals(60, PageRequest.of(3, 20).getOffset());
+    }
+
+    @Test
+    void rejectsPagesWhoseOffsetOverflowsInt() {
+        assertEquals(Integer.MAX_VALUE - 1, PageRequest.of(Integer.MAX_VALUE / 2, 2).getOffset());
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.of(Integer.MAX_VALUE / 2 + 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.of(100_000, 100_000));
+    }
+
+}
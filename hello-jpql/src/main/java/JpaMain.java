@@ -65,12 +65,27 @@ public class JpaMain {
 //                System.out.println("age: " + memberDTO.getAge());
 //            }
 //
+//            // 패키지 이름 없이 select 절 컬럼을 생성자 순서대로 DTO 에 담는다.
+//            List<MemberDTO> projectedDTO = ProjectionQuery.of(em,
+//                    "select m.username, m.age from Member m", MemberDTO.class)
+//                .getResultList();
+//
 //            List<Member> pagingList = em.createQuery("select m from Member m order by m.age desc",
 //                    Member.class)
 //                .setFirstResult(0)
 //                .setMaxResults(10)
 //                .getResultList();
 
+//            // 키셋 페이징: OFFSET 없이 이전 페이지의 마지막 (age, id) 다음부터 읽는다.
+//            KeysetQuery<Member> keysetQuery = KeysetQuery.of(
+//                    em.createQuery("select m from Member m order by m.age desc, m.id desc", Member.class),
+//                    em.createQuery("select m from Member m"
+//                        + " where m.age <= :lastKey and (m.age < :lastKey or m.id < :lastId)"
+//                        + " order by m.age desc, m.id desc", Member.class))
+//                .keys(Member::getAge, Member::getId);
+//            KeysetPage<Member> firstPage = keysetQuery.fetch(null, 10);
+//            KeysetPage<Member> secondPage = keysetQuery.fetch(firstPage.getNextCursor(), 10);
+
 //            String query = "select m.username, 'HELLO', TRUE from Member m "
 //                + "where m.type = jpql.MemberType.ADMIN";
 //            List<Object[]> resultListWithType = em.createQuery(query)
@@ -95,6 +110,12 @@ public class JpaMain {
 //                System.out.println("ss = " + s);
 //            }
 
+//            // 기동할 때 번역해 둔 쿼리를 이름으로 실행한다.
+//            QueryRegistry registry = QueryRegistry.compile(emf, MemberQueries::register);
+//            List<Member> admins = registry.createQuery(em, MemberQueries.FIND_BY_TYPE, Member.class)
+//                .setParameter("userType", MemberType.ADMIN)
+//                .getResultList();
+
 //            List<Member> resultList = em.createNamedQuery("Member.findByUsername", Member.class)
 //                .setParameter("username", "member1").getResultList();
 //            for (Member member : resultList) {
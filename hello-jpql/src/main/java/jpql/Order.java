@@ -3,9 +3,11 @@ package jpql;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,10 +16,14 @@ import lombok.Setter;
 @Setter
 @Entity
 @Table(name = "ORDERS")
+@SequenceGenerator(
+    name = "ORDER_SEQ_GENERATOR",
+    sequenceName = "ORDER_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ORDER_SEQ_GENERATOR")
     private Long id;
 
     private int orderAmount;
@@ -2,17 +2,23 @@ package jpql;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 @Entity
+@SequenceGenerator(
+    name = "PRODUCT_SEQ_GENERATOR",
+    sequenceName = "PRODUCT_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class Product {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "PRODUCT_SEQ_GENERATOR")
     private Long id;
 
     private String name;
@@ -0,0 +1,122 @@
+package jpql.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 마지막으로 읽은 행의 (정렬 키, 식별자) 값. 클라이언트에는 인코딩된 문자열로만 전달한다.
+ * <p>
+ * 자바 직렬화 대신 타입 태그를 붙인 문자열로 인코딩해서, 조작된 커서가 들어와도 허용된 값 타입으로만 복원된다.
+ * 값마다 {@code 태그 + 길이 + ':' + 값} 으로 쓰고 null 은 태그 {@code N} 만 쓴다.
+ * 구분자 없이 길이로 값을 자르므로 문자열 값에 어떤 문자가 들어 있어도 그대로 복원된다.
+ */
+public class KeysetCursor {
+
+    private final Object[] values;
+
+    public KeysetCursor(Object... values) {
+        for (Object value : values) {
+            if (value != null) {
+                tagOf(value);
+            }
+        }
+        this.values = values.clone();
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values) {
+            if (value == null) {
+                sb.append('N');
+                continue;
+            }
+            String text = value.toString();
+            sb.append(tagOf(value)).append(text.length()).append(':').append(text);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+
+        try {
+            List<Object> values = new ArrayList<>();
+            int position = 0;
+            while (position < decoded.length()) {
+                char tag = decoded.charAt(position++);
+                if (tag == 'N') {
+                    values.add(null);
+                    continue;
+                }
+                int colon = decoded.indexOf(':', position);
+                int length = Integer.parseInt(decoded.substring(position, colon));
+                int end = Math.addExact(colon + 1, length);
+                values.add(parse(tag, decoded.substring(colon + 1, end)));
+                position = end;
+            }
+            return new KeysetCursor(values.toArray());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static char tagOf(Object value) {
+        if (value instanceof Integer) {
+            return 'I';
+        }
+        if (value instanceof Long) {
+            return 'L';
+        }
+        if (value instanceof String) {
+            return 'S';
+        }
+        if (value instanceof LocalDateTime) {
+            return 'T';
+        }
+        if (value instanceof LocalDate) {
+            return 'D';
+        }
+        throw new IllegalArgumentException("unsupported keyset value type: " + value.getClass());
+    }
+
+    private static Object parse(char tag, String value) {
+        switch (tag) {
+            case 'I':
+                return Integer.valueOf(value);
+            case 'L':
+                return Long.valueOf(value);
+            case 'S':
+                return value;
+            case 'T':
+                return LocalDateTime.parse(value);
+            case 'D':
+                return LocalDate.parse(value);
+            default:
+                throw new IllegalArgumentException("unknown value tag: " + tag);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor" + Arrays.toString(values);
+    }
+}
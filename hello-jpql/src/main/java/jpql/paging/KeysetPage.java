@@ -0,0 +1,19 @@
+package jpql.paging;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    // 다음 페이지 요청에 그대로 넘기는 값. 마지막 페이지면 null
+    private final String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,132 @@
+package jpql.paging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.TypedQuery;
+
+/**
+ * OFFSET 대신 마지막으로 읽은 행의 (정렬 키, 식별자) 다음부터 읽는 키셋(seek) 페이징.
+ * <p>
+ * 쿼리는 호출하는 쪽이 만든 {@link TypedQuery} 를 그대로 쓴다. 첫 페이지 쿼리와, 이전 페이지의 마지막 값을
+ * {@code :lastKey}, {@code :lastId} 로 받는 다음 페이지 쿼리를 넘긴다.
+ * "order by m.age desc, m.id desc" 라면 다음 페이지 조건은 {@code (m.age, m.id) < (:lastKey, :lastId)} 이고,
+ * 인덱스 범위 검색이 되도록 {@code m.age <= :lastKey and (m.age < :lastKey or m.id < :lastId)} 로 풀어 쓴다.
+ * 같은 방향으로 정렬된 (정렬 키, 식별자) 인덱스가 있으면 몇 번째 페이지든 인덱스에서 바로 시작 위치를 찾는다.
+ *
+ * <pre>{@code
+ * KeysetPage<Member> page = KeysetQuery.of(
+ *         em.createQuery("select m from Member m order by m.age desc, m.id desc", Member.class),
+ *         em.createQuery("select m from Member m"
+ *             + " where m.age <= :lastKey and (m.age < :lastKey or m.id < :lastId)"
+ *             + " order by m.age desc, m.id desc", Member.class))
+ *     .keys(Member::getAge, Member::getId)
+ *     .fetch(cursor, 10);
+ * }</pre>
+ * <p>
+ * 정렬 키가 null 일 수 있으면 null 을 마지막에 정렬하고, 다음 페이지 쿼리에 null 인 행을 포함시킨 뒤
+ * 마지막 값이 null 일 때 쓸 쿼리({@code :lastId} 만 받는다)를 {@link #afterNullKey(TypedQuery)} 로 넘긴다.
+ *
+ * <pre>{@code
+ * KeysetQuery.of(
+ *         em.createQuery("select m from Member m order by m.username nulls last, m.id", Member.class),
+ *         em.createQuery("select m from Member m"
+ *             + " where m.username is null or m.username > :lastKey or (m.username = :lastKey and m.id > :lastId)"
+ *             + " order by m.username nulls last, m.id", Member.class))
+ *     .afterNullKey(em.createQuery("select m from Member m"
+ *         + " where m.username is null and m.id > :lastId order by m.id", Member.class))
+ *     .keys(Member::getUsername, Member::getId)
+ *     .fetch(cursor, 10);
+ * }</pre>
+ */
+public class KeysetQuery<T> {
+
+    public static final String LAST_KEY = "lastKey";
+    public static final String LAST_ID = "lastId";
+
+    private final TypedQuery<T> firstPage;
+    private final TypedQuery<T> nextPage;
+
+    private TypedQuery<T> afterNullKey;
+    private Function<? super T, ?> sortKey;
+    private Function<? super T, ?> tiebreaker;
+
+    private KeysetQuery(TypedQuery<T> firstPage, TypedQuery<T> nextPage) {
+        this.firstPage = firstPage;
+        this.nextPage = nextPage;
+    }
+
+    public static <T> KeysetQuery<T> of(TypedQuery<T> firstPage, TypedQuery<T> nextPage) {
+        return new KeysetQuery<>(firstPage, nextPage);
+    }
+
+    /**
+     * @param sortKey    정렬 키를 읽는 함수. 다음 페이지 쿼리의 {@code :lastKey} 로 바인딩된다.
+     * @param tiebreaker 정렬 키가 같은 행의 순서를 정하는 유일한 값(식별자). null 이면 안 된다.
+     */
+    public KeysetQuery<T> keys(Function<? super T, ?> sortKey, Function<? super T, ?> tiebreaker) {
+        this.sortKey = sortKey;
+        this.tiebreaker = tiebreaker;
+        return this;
+    }
+
+    // 이전 페이지의 마지막 정렬 키가 null 일 때 쓰는 쿼리
+    public KeysetQuery<T> afterNullKey(TypedQuery<T> afterNullKey) {
+        this.afterNullKey = afterNullKey;
+        return this;
+    }
+
+    /**
+     * @param cursor 이전 페이지의 {@link KeysetPage#getNextCursor()}. 첫 페이지는 null
+     */
+    public KeysetPage<T> fetch(String cursor, int size) {
+        if (sortKey == null || tiebreaker == null) {
+            throw new IllegalStateException("keys are required");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+
+        // 한 건 더 읽어서 다음 페이지가 있는지 확인한다.
+        List<T> rows = query(cursor)
+            .setMaxResults(size + 1)
+            .getResultList();
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            Object lastId = tiebreaker.apply(last);
+            if (lastId == null) {
+                throw new IllegalStateException("tiebreaker must not be null: " + last);
+            }
+            nextCursor = new KeysetCursor(sortKey.apply(last), lastId).encode();
+        }
+        return new KeysetPage<>(content, nextCursor);
+    }
+
+    private TypedQuery<T> query(String cursor) {
+        if (cursor == null) {
+            return firstPage;
+        }
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+        if (decoded.size() != 2 || decoded.getValue(1) == null) {
+            throw new IllegalArgumentException("cursor does not match sort keys: " + decoded);
+        }
+        Object lastKey = decoded.getValue(0);
+        Object lastId = decoded.getValue(1);
+
+        if (lastKey == null) {
+            if (afterNullKey == null) {
+                throw new IllegalStateException("sort key of the last row is null but no afterNullKey query is set");
+            }
+            return afterNullKey.setParameter(LAST_ID, lastId);
+        }
+        return nextPage
+            .setParameter(LAST_KEY, lastKey)
+            .setParameter(LAST_ID, lastId);
+    }
+
+}
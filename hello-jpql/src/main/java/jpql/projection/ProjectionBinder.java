@@ -0,0 +1,11 @@
+package jpql.projection;
+
+/**
+ * 조회 결과 한 행(select 절 순서의 값 배열)을 DTO 하나로 바꾼다.
+ */
+@FunctionalInterface
+public interface ProjectionBinder<T> {
+
+    T bind(Object[] row);
+
+}
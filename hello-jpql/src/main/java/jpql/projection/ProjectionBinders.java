@@ -0,0 +1,262 @@
+package jpql.projection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * (대상 타입, select 별칭, 컬럼 타입) 모양마다 {@link ProjectionBinder} 를 한 번만 만들어 캐시한다.
+ * <p>
+ * 클래스와 레코드는 생성자를 찾아 Object[] 를 펼쳐 받는 MethodHandle 로 바꿔 두므로, 행마다 생성자를
+ * 다시 찾거나 인자 배열을 복사하지 않는다. 레코드는 모든 컬럼에 별칭이 있으면 별칭과 같은 이름의
+ * 컴포넌트에 넣고, 아니면 select 순서대로 넣는다.
+ * <p>
+ * 인터페이스는 getter 이름(getUsername(), username())과 같은 별칭의 값을 돌려주는 프록시로 만든다.
+ * 이 경우 select 절의 모든 컬럼에 별칭이 필요하다.
+ */
+public final class ProjectionBinders {
+
+    private static final ConcurrentMap<Shape, ProjectionBinder<?>> BINDERS = new ConcurrentHashMap<>();
+
+    private ProjectionBinders() {
+    }
+
+    /**
+     * @param aliases     select 절 별칭. 별칭이 없는 컬럼은 null
+     * @param columnTypes select 절 컬럼의 자바 타입
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ProjectionBinder<T> binderFor(Class<T> type, String[] aliases, Class<?>[] columnTypes) {
+        Shape shape = new Shape(type, Arrays.asList(aliases), Arrays.asList(columnTypes));
+        return (ProjectionBinder<T>) BINDERS.computeIfAbsent(shape, ProjectionBinders::createBinder);
+    }
+
+    public static int cachedShapes() {
+        return BINDERS.size();
+    }
+
+    private static ProjectionBinder<?> createBinder(Shape shape) {
+        if (shape.type.isInterface()) {
+            return interfaceBinder(shape);
+        }
+        if (shape.type.isRecord() && hasAllAliases(shape.aliases)) {
+            return recordBinder(shape);
+        }
+        Constructor<?> constructor = findConstructor(shape);
+        return spreadingBinder(unreflect(constructor), constructor.getParameterCount());
+    }
+
+    private static ProjectionBinder<?> recordBinder(Shape shape) {
+        RecordComponent[] components = shape.type.getRecordComponents();
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        Map<String, Integer> componentIndex = new HashMap<>();
+        for (int i = 0; i < components.length; i++) {
+            parameterTypes[i] = components[i].getType();
+            componentIndex.put(components[i].getName(), i);
+        }
+        if (components.length != shape.aliases.size()) {
+            throw new IllegalArgumentException(shape.type.getName() + " has " + components.length
+                + " components but the query selects " + shape.aliases.size() + " columns");
+        }
+
+        // 생성자 인자 i 에는 select 절의 reorder[i] 번째 컬럼을 넣는다.
+        int[] reorder = new int[components.length];
+        Class<?>[] selectOrder = new Class<?>[components.length];
+        for (int column = 0; column < shape.aliases.size(); column++) {
+            Integer parameter = componentIndex.get(shape.aliases.get(column));
+            if (parameter == null) {
+                throw new IllegalArgumentException(
+                    shape.type.getName() + " has no component named " + shape.aliases.get(column));
+            }
+            reorder[parameter] = column;
+            selectOrder[column] = parameterTypes[parameter];
+        }
+
+        Constructor<?> constructor;
+        try {
+            constructor = shape.type.getDeclaredConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("canonical constructor not found: " + shape.type.getName(), e);
+        }
+        MethodHandle handle = MethodHandles.permuteArguments(unreflect(constructor),
+            MethodType.methodType(shape.type, selectOrder), reorder);
+        return spreadingBinder(handle, components.length);
+    }
+
+    private static ProjectionBinder<?> spreadingBinder(MethodHandle constructor, int arity) {
+        MethodHandle handle = constructor
+            .asSpreader(Object[].class, arity)
+            .asType(MethodType.methodType(Object.class, Object[].class));
+        return row -> {
+            try {
+                return handle.invokeExact(row);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static Constructor<?> findConstructor(Shape shape) {
+        Constructor<?> found = null;
+        for (Constructor<?> constructor : shape.type.getDeclaredConstructors()) {
+            if (!accepts(constructor.getParameterTypes(), shape.columnTypes)) {
+                continue;
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("ambiguous constructors on " + shape.type.getName()
+                    + " for columns " + shape.columnTypes);
+            }
+            found = constructor;
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(
+                "no constructor on " + shape.type.getName() + " accepts columns " + shape.columnTypes);
+        }
+        return found;
+    }
+
+    private static boolean accepts(Class<?>[] parameterTypes, List<Class<?>> columnTypes) {
+        if (parameterTypes.length != columnTypes.size()) {
+            return false;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!box(parameterTypes[i]).isAssignableFrom(box(columnTypes.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ProjectionBinder<?> interfaceBinder(Shape shape) {
+        if (!hasAllAliases(shape.aliases)) {
+            throw new IllegalArgumentException(
+                "interface projection " + shape.type.getName() + " requires an alias for every column");
+        }
+
+        Map<Method, Integer> columnIndex = new HashMap<>();
+        for (Method method : shape.type.getMethods()) {
+            if (method.getParameterCount() > 0 || method.isDefault()) {
+                continue;
+            }
+            int column = shape.aliases.indexOf(propertyName(method.getName()));
+            if (column < 0) {
+                throw new IllegalArgumentException("no column aliased " + propertyName(method.getName())
+                    + " for " + shape.type.getName() + "." + method.getName() + "()");
+            }
+            columnIndex.put(method, column);
+        }
+
+        ClassLoader classLoader = shape.type.getClassLoader();
+        Class<?>[] interfaces = {shape.type};
+        return row -> Proxy.newProxyInstance(classLoader, interfaces, new RowHandler(shape, columnIndex, row));
+    }
+
+    private static String propertyName(String methodName) {
+        for (String prefix : new String[]{"get", "is"}) {
+            if (methodName.length() > prefix.length() && methodName.startsWith(prefix)
+                && Character.isUpperCase(methodName.charAt(prefix.length()))) {
+                return Character.toLowerCase(methodName.charAt(prefix.length()))
+                    + methodName.substring(prefix.length() + 1);
+            }
+        }
+        return methodName;
+    }
+
+    private static boolean hasAllAliases(List<String> aliases) {
+        return aliases.stream().allMatch(Objects::nonNull);
+    }
+
+    private static MethodHandle unreflect(Constructor<?> constructor) {
+        try {
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("cannot access " + constructor, e);
+        }
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static class RowHandler implements InvocationHandler {
+
+        private final Shape shape;
+        private final Map<Method, Integer> columnIndex;
+        private final Object[] row;
+
+        RowHandler(Shape shape, Map<Method, Integer> columnIndex, Object[] row) {
+            this.shape = shape;
+            this.columnIndex = columnIndex;
+            this.row = row;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Integer column = columnIndex.get(method);
+            if (column != null) {
+                return row[column];
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return shape.type.getSimpleName() + Arrays.toString(row);
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+
+    private static class Shape {
+
+        private final Class<?> type;
+        private final List<String> aliases;
+        private final List<Class<?>> columnTypes;
+
+        Shape(Class<?> type, List<String> aliases, List<Class<?>> columnTypes) {
+            this.type = type;
+            this.aliases = aliases;
+            this.columnTypes = columnTypes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Shape)) {
+                return false;
+            }
+            Shape shape = (Shape) o;
+            return type.equals(shape.type)
+                && aliases.equals(shape.aliases)
+                && columnTypes.equals(shape.columnTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, aliases, columnTypes);
+        }
+    }
+
+}
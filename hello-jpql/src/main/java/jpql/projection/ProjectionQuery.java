@@ -0,0 +1,137 @@
+package jpql.projection;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.hibernate.transform.ResultTransformer;
+import org.hibernate.type.Type;
+
+/**
+ * 스칼라 select 결과를 DTO(클래스, 레코드, 인터페이스)로 바로 받는다.
+ * <p>
+ * {@code select new jpql.MemberDTO(...)} 처럼 쿼리 문자열에 패키지 이름까지 쓰지 않아도 되고,
+ * 행마다 리플렉션으로 생성자를 호출하지 않고 모양별로 캐시한 {@link ProjectionBinder} 를 쓴다.
+ * 결과 목록에는 DTO 만 남는다(행 배열은 바로 버려진다).
+ *
+ * <pre>{@code
+ * List<MemberDTO> members = ProjectionQuery.of(em,
+ *         "select m.username, m.age from Member m where m.age > :age", MemberDTO.class)
+ *     .setParameter("age", 20)
+ *     .getResultList();
+ * }</pre>
+ */
+public class ProjectionQuery<T> {
+
+    private final Query<?> query;
+    private final ProjectionBinder<T> binder;
+
+    private ProjectionQuery(Query<?> query, Class<T> type) {
+        this.query = query;
+        this.binder = ProjectionBinders.binderFor(type, aliases(query), columnTypes(query));
+    }
+
+    public static <T> ProjectionQuery<T> of(EntityManager em, String jpql, Class<T> type) {
+        return new ProjectionQuery<>(em.createQuery(jpql).unwrap(Query.class), type);
+    }
+
+    public ProjectionQuery<T> setParameter(String name, Object value) {
+        query.setParameter(name, value);
+        return this;
+    }
+
+    public ProjectionQuery<T> setFirstResult(int firstResult) {
+        query.setFirstResult(firstResult);
+        return this;
+    }
+
+    public ProjectionQuery<T> setMaxResults(int maxResults) {
+        query.setMaxResults(maxResults);
+        return this;
+    }
+
+    public ProjectionQuery<T> setFetchSize(int fetchSize) {
+        query.setFetchSize(fetchSize);
+        return this;
+    }
+
+    @SuppressWarnings({"unchecked", "deprecation"})
+    public List<T> getResultList() {
+        return (List<T>) query.setResultTransformer(new BinderTransformer(binder)).list();
+    }
+
+    /**
+     * 앞으로만 읽는 커서로 한 행씩 DTO 로 바꾼다. 스트림은 try-with-resources 로 닫는다.
+     */
+    public Stream<T> getResultStream() {
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        return StreamSupport.stream(new ScrollSpliterator(results), false)
+            .onClose(results::close);
+    }
+
+    private static String[] aliases(Query<?> query) {
+        String[] aliases = query.getReturnAliases();
+        // 별칭이 없는 컬럼은 Hibernate 가 "0", "1" 처럼 위치로 채운다.
+        for (int i = 0; i < aliases.length; i++) {
+            if (aliases[i] != null && aliases[i].equals(Integer.toString(i))) {
+                aliases[i] = null;
+            }
+        }
+        return aliases;
+    }
+
+    private static Class<?>[] columnTypes(Query<?> query) {
+        Type[] types = query.getReturnTypes();
+        Class<?>[] columnTypes = new Class<?>[types.length];
+        for (int i = 0; i < types.length; i++) {
+            columnTypes[i] = types[i].getReturnedClass();
+        }
+        return columnTypes;
+    }
+
+    private static class BinderTransformer implements ResultTransformer {
+
+        private final transient ProjectionBinder<?> binder;
+
+        BinderTransformer(ProjectionBinder<?> binder) {
+            this.binder = binder;
+        }
+
+        @Override
+        public Object transformTuple(Object[] tuple, String[] aliases) {
+            return binder.bind(tuple);
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public List transformList(List collection) {
+            return collection;
+        }
+    }
+
+    private class ScrollSpliterator extends Spliterators.AbstractSpliterator<T> {
+
+        private final ScrollableResults results;
+
+        ScrollSpliterator(ScrollableResults results) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.results = results;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (!results.next()) {
+                return false;
+            }
+            action.accept(binder.bind(results.get()));
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package jpql.query;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 기동 시 번역해 둔 쿼리. jpql 은 Criteria 쿼리라면 Hibernate 가 만든 JPQL 이다.
+ */
+@Getter
+@AllArgsConstructor
+public class CompiledQuery {
+
+    private final String name;
+    private final String jpql;
+    private final List<String> sql;
+    private final long compileNanos;
+
+}
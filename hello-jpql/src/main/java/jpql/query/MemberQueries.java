@@ -0,0 +1,38 @@
+package jpql.query;
+
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import jpql.Member;
+
+/**
+ * JpaMain 에서 쓰는 Member, Team 쿼리. {@link QueryRegistry#compile} 에 넘긴다.
+ */
+public final class MemberQueries {
+
+    public static final String FIND_ALL = "Member.findAll";
+    public static final String FIND_ALL_ORDER_BY_AGE = "Member.findAllOrderByAge";
+    public static final String FIND_USERNAME_AND_AGE = "Member.findUsernameAndAge";
+    public static final String FIND_DTO = "Member.findDTO";
+    public static final String FIND_BY_TYPE = "Member.findByType";
+    public static final String FIND_BY_USERNAME_CRITERIA = "Member.findByUsernameCriteria";
+    public static final String FIND_TEAM_MEMBERS = "Team.findMembers";
+
+    private MemberQueries() {
+    }
+
+    public static void register(QueryRegistry registry) {
+        registry
+            .register(FIND_ALL, "select m from Member m")
+            .register(FIND_ALL_ORDER_BY_AGE, "select m from Member m order by m.age desc")
+            .register(FIND_USERNAME_AND_AGE, "select m.username, m.age from Member m")
+            .register(FIND_DTO, "select new jpql.MemberDTO(m.username, m.age) from Member m")
+            .register(FIND_BY_TYPE, "select m from Member m where m.type = :userType")
+            .register(FIND_TEAM_MEMBERS, "select t.members from Team t")
+            .register(FIND_BY_USERNAME_CRITERIA, cb -> {
+                CriteriaQuery<Member> query = cb.createQuery(Member.class);
+                Root<Member> m = query.from(Member.class);
+                return query.select(m).where(cb.equal(m.get("username"), cb.parameter(String.class, "username")));
+            });
+    }
+
+}
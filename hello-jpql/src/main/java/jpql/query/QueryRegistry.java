@@ -0,0 +1,201 @@
+package jpql.query;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.metamodel.EntityType;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.query.spi.QueryPlanCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * 애플리케이션이 쓰는 JPQL, Criteria 쿼리를 EntityManagerFactory 를 만들 때 한 번에 번역해서
+ * 이름 있는 쿼리로 등록한다.
+ * <p>
+ * 문자열 쿼리는 처음 실행할 때 파싱, SQL 번역을 하므로 첫 요청이 느리고, Criteria 쿼리는 호출할 때마다
+ * 쿼리 트리를 만들고 JPQL 로 렌더링한다. 여기에 등록해 두면 기동할 때 번역이 끝나 있고(쿼리 플랜 캐시),
+ * 실행할 때는 {@link #createQuery} 로 이름만 찾는다. 잘못된 쿼리가 하나라도 있으면 기동이 실패한다.
+ * <p>
+ * 엔티티의 {@code @NamedQuery} 도 함께 모아서 번역된 SQL 을 확인할 수 있게 한다.
+ * 쿼리 플랜 캐시 크기는 persistence.xml 의 hibernate.query.plan_cache_max_size 로 제한한다.
+ *
+ * <pre>{@code
+ * QueryRegistry registry = QueryRegistry.compile(emf, MemberQueries::register);
+ * List<Member> members = registry.createQuery(em, MemberQueries.FIND_BY_TYPE, Member.class)
+ *     .setParameter("userType", MemberType.ADMIN)
+ *     .getResultList();
+ * }</pre>
+ */
+public class QueryRegistry {
+
+    private final EntityManagerFactory emf;
+    private final Map<String, String> jpqlQueries = new LinkedHashMap<>();
+    private final Map<String, Function<CriteriaBuilder, CriteriaQuery<?>>> criteriaQueries = new LinkedHashMap<>();
+    private final Map<String, CompiledQuery> compiled = new LinkedHashMap<>();
+
+    private QueryRegistry(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * 쿼리를 등록하고 모두 번역한다.
+     *
+     * @throws IllegalStateException 번역에 실패한 쿼리가 있을 때. 실패한 쿼리를 모두 메시지에 담는다.
+     */
+    public static QueryRegistry compile(EntityManagerFactory emf, Consumer<QueryRegistry> registrations) {
+        QueryRegistry registry = new QueryRegistry(emf);
+        registrations.accept(registry);
+        registry.compileAll();
+        return registry;
+    }
+
+    public QueryRegistry register(String name, String jpql) {
+        checkNotRegistered(name);
+        jpqlQueries.put(name, jpql);
+        return this;
+    }
+
+    /**
+     * Criteria 쿼리는 리터럴 대신 {@code cb.parameter(...)} 로 파라미터를 써야 실행할 때 값을 바꿀 수 있다.
+     */
+    public QueryRegistry register(String name, Function<CriteriaBuilder, CriteriaQuery<?>> criteria) {
+        checkNotRegistered(name);
+        criteriaQueries.put(name, criteria);
+        return this;
+    }
+
+    public <T> TypedQuery<T> createQuery(EntityManager em, String name, Class<T> resultClass) {
+        checkCompiled(name);
+        return em.createNamedQuery(name, resultClass);
+    }
+
+    public Query createQuery(EntityManager em, String name) {
+        checkCompiled(name);
+        return em.createNamedQuery(name);
+    }
+
+    public CompiledQuery getCompiledQuery(String name) {
+        checkCompiled(name);
+        return compiled.get(name);
+    }
+
+    public Map<String, CompiledQuery> getCompiledQueries() {
+        return Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * 현재 쿼리 플랜 캐시에 들어 있는 플랜 수. Hibernate 5.3 은 캐시 크기를 공개하지 않으므로 내부 필드를 읽고,
+     * 읽을 수 없으면 -1 을 돌려준다.
+     */
+    public int planCacheSize() {
+        QueryPlanCache planCache = emf.unwrap(SessionFactoryImplementor.class).getQueryPlanCache();
+        try {
+            Field field = QueryPlanCache.class.getDeclaredField("queryPlanCache");
+            field.setAccessible(true);
+            return ((Map<?, ?>) field.get(planCache)).size();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private void compileAll() {
+        List<String> errors = new ArrayList<>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (Map.Entry<String, String> entry : namedQueries().entrySet()) {
+                compileNamed(entry.getKey(), entry.getValue(), errors);
+            }
+            for (Map.Entry<String, String> entry : jpqlQueries.entrySet()) {
+                compileQuery(entry.getKey(), errors, () -> em.createQuery(entry.getValue()));
+            }
+            for (Map.Entry<String, Function<CriteriaBuilder, CriteriaQuery<?>>> entry : criteriaQueries.entrySet()) {
+                compileQuery(entry.getKey(), errors,
+                    () -> em.createQuery(entry.getValue().apply(em.getCriteriaBuilder())));
+            }
+        } finally {
+            em.close();
+        }
+
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("invalid queries:\n" + String.join("\n", errors));
+        }
+    }
+
+    // @NamedQuery 는 Hibernate 가 기동할 때 이미 검사하고 번역했으므로 SQL 만 모은다.
+    private void compileNamed(String name, String jpql, List<String> errors) {
+        try {
+            long start = System.nanoTime();
+            List<String> sql = translate(jpql);
+            compiled.put(name, new CompiledQuery(name, jpql, sql, System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            errors.add(name + ": " + e.getMessage());
+        }
+    }
+
+    private void compileQuery(String name, List<String> errors, Supplier<Query> factory) {
+        try {
+            long start = System.nanoTime();
+            Query query = factory.get();
+            String jpql = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+            List<String> sql = translate(jpql);
+            emf.addNamedQuery(name, query);
+            compiled.put(name, new CompiledQuery(name, jpql, sql, System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            errors.add(name + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> translate(String jpql) {
+        HQLQueryPlan plan = emf.unwrap(SessionFactoryImplementor.class)
+            .getQueryPlanCache()
+            .getHQLQueryPlan(jpql, false, Collections.emptyMap());
+        List<String> sql = new ArrayList<>();
+        Collections.addAll(sql, plan.getSqlStrings());
+        return Collections.unmodifiableList(sql);
+    }
+
+    private Map<String, String> namedQueries() {
+        Map<String, String> namedQueries = new LinkedHashMap<>();
+        for (EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            Class<?> javaType = entity.getJavaType();
+            NamedQuery namedQuery = javaType.getAnnotation(NamedQuery.class);
+            if (namedQuery != null) {
+                namedQueries.put(namedQuery.name(), namedQuery.query());
+            }
+            NamedQueries container = javaType.getAnnotation(NamedQueries.class);
+            if (container != null) {
+                for (NamedQuery each : container.value()) {
+                    namedQueries.put(each.name(), each.query());
+                }
+            }
+        }
+        return namedQueries;
+    }
+
+    private void checkNotRegistered(String name) {
+        if (jpqlQueries.containsKey(name) || criteriaQueries.containsKey(name)) {
+            throw new IllegalArgumentException("query already registered: " + name);
+        }
+    }
+
+    private void checkCompiled(String name) {
+        if (!compiled.containsKey(name)) {
+            throw new IllegalArgumentException("unknown query: " + name);
+        }
+    }
+
+}
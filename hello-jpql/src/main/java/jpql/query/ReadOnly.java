@@ -0,0 +1,38 @@
+package jpql.query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+
+/**
+ * 조회 전용(리포트) 실행 모드.
+ * <p>
+ * 읽기 전용으로 읽은 엔티티는 변경 감지용 스냅샷(로딩 시점 값의 복사본)을 남기지 않고 flush 대상에서도 빠진다.
+ * 또 쿼리 전에 자동으로 flush 하지 않는다. 엔티티를 수정해도 DB 에 반영되지 않으므로, 수정할 엔티티는
+ * 기본 모드로 다시 조회한다.
+ */
+public final class ReadOnly {
+
+    private ReadOnly() {
+    }
+
+    // 이 쿼리로 읽은 엔티티만 읽기 전용으로 만든다.
+    public static <T> TypedQuery<T> query(TypedQuery<T> query) {
+        return query
+            .setHint(QueryHints.READ_ONLY, true)
+            .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+
+    // 이 EntityManager 로 읽는 모든 엔티티를 읽기 전용으로 만든다.
+    public static EntityManager entityManager(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        Session session = em.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        return em;
+    }
+
+}
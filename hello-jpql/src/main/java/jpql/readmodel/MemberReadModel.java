@@ -0,0 +1,495 @@
+package jpql.readmodel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpql.stream.QueryStreamer;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+
+/**
+ * "사용자 이름으로 회원과 팀 이름 조회" 를 EntityManager 없이 처리하는 읽기 전용 저장소.
+ * <p>
+ * 엔티티 대신 회원마다 원시 타입 배열의 한 칸(슬롯)에 id, 나이, 팀 슬롯을 두고, 사용자 이름은 하나의 char 배열에 이어 붙인다.
+ * id, 사용자 이름 -> 슬롯은 개방 주소법 해시 테이블(int 배열)로 찾는다. 회원 한 명당 객체를 만들지 않는다.
+ * 조회 결과는 호출한 쪽이 넘긴 {@link MemberView} 에 채운다.
+ * <p>
+ * {@link #attach} 는 커밋 후(POST_COMMIT_*) 이벤트 리스너를 등록한 뒤 전체를 한 번 읽는다.
+ * 이후에는 커밋된 Member, Team 의 저장/변경/삭제만 반영한다. JPQL 벌크 연산, 네이티브 SQL 로 바꾼 행은 반영되지 않는다.
+ * <p>
+ * 조회는 StampedLock 의 낙관적 읽기로 잠금 없이 하고, 그 사이 변경이 있었으면 읽기 잠금을 잡고 다시 읽는다.
+ * 회원 id 는 0 이 아니어야 한다.
+ *
+ * <pre>{@code
+ * MemberReadModel members = MemberReadModel.attach(emf);
+ * MemberView view = new MemberView();
+ * if (members.findByUsername("member1", view)) {
+ *     view.getTeamName();
+ * }
+ * }</pre>
+ */
+public class MemberReadModel {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // 해시 테이블 칸: 슬롯 + 1, 빈 칸, 삭제된 칸
+    private static final int FREE = 0;
+    private static final int REMOVED = -1;
+
+    private static final int NO_TEAM = -1;
+    private static final int NULL_NAME = -1;
+
+    private final StampedLock lock = new StampedLock();
+
+    // 회원 슬롯. ids[slot] == 0 이면 빈 슬롯
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private int[] teamSlots = new int[INITIAL_CAPACITY];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY];
+    private int[] nameLengths = new int[INITIAL_CAPACITY];
+    private int[] nameHashes = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int memberCount;
+
+    // 모든 사용자 이름을 이어 붙인 배열. 이름이 바뀌면 새 이름을 뒤에 붙이고, 버려진 문자가 많아지면 다시 채운다.
+    private char[] names = new char[INITIAL_CAPACITY * 8];
+    private int namesLength;
+    private int garbageChars;
+
+    private int[] idTable = new int[INITIAL_CAPACITY * 2];
+    private int idTableUsed;
+    private int[] nameTable = new int[INITIAL_CAPACITY * 2];
+    private int nameTableUsed;
+
+    // 팀은 적고, id 로 찾는 것은 쓰기 경로뿐이다.
+    private long[] teamIds = new long[64];
+    private String[] teamNames = new String[64];
+    private int teamCount;
+    private final Map<Long, Integer> teamSlotsById = new HashMap<>();
+
+    // 전체를 읽는 동안 삭제된 회원. 읽은 행이 삭제 이벤트보다 오래된 것일 수 있다.
+    private Set<Long> removedWhileLoading;
+
+    public static MemberReadModel attach(EntityManagerFactory emf) {
+        MemberReadModel model = new MemberReadModel();
+        ReadModelListener listener = new ReadModelListener(model);
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        model.load(emf);
+        return model;
+    }
+
+    /**
+     * 전체 회원, 팀을 읽는다. 이미 이벤트로 반영된 회원은 덮어쓰지 않는다.
+     */
+    public void load(EntityManagerFactory emf) {
+        long stamp = lock.writeLock();
+        try {
+            removedWhileLoading = new HashSet<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            QueryStreamer streamer = new QueryStreamer(em).readOnly();
+            try (Stream<Object[]> teams = streamer.stream("select t.id, t.name from Team t", Object[].class)) {
+                teams.forEach(row -> putTeam((Long) row[0], (String) row[1], false));
+            }
+            try (Stream<Object[]> members = streamer.stream(
+                "select m.id, m.username, m.age, t.id from Member m left join m.team t", Object[].class)) {
+                members.forEach(row -> putMember((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], false));
+            }
+        } finally {
+            em.close();
+            stamp = lock.writeLock();
+            try {
+                removedWhileLoading = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public boolean findById(long id, MemberView view) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                boolean found = fill(slotOfId(id), view);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            } catch (RuntimeException e) {
+                // 배열이 바뀌는 중에 읽었다. 잠금을 잡고 다시 읽는다.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return fill(slotOfId(id), view);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean findByUsername(String username, MemberView view) {
+        int hash = username.hashCode();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                boolean found = fill(slotOfUsername(username, hash), view);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            } catch (RuntimeException e) {
+                // 배열이 바뀌는 중에 읽었다. 잠금을 잡고 다시 읽는다.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return fill(slotOfUsername(username, hash), view);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return memberCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 배열이 차지하는 바이트 수 (객체 헤더, 팀 이름 문자열 제외)
+     */
+    public long estimateBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) ids.length * (Long.BYTES + 5 * Integer.BYTES)
+                + (long) names.length * Character.BYTES
+                + (long) (idTable.length + nameTable.length + freeSlots.length) * Integer.BYTES
+                + (long) teamIds.length * (Long.BYTES + Integer.BYTES);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void putMember(long id, String username, int age, Long teamId) {
+        putMember(id, username, age, teamId, true);
+    }
+
+    void removeMember(long id) {
+        long stamp = lock.writeLock();
+        try {
+            if (removedWhileLoading != null) {
+                removedWhileLoading.add(id);
+            }
+            int slot = slotOfId(id);
+            if (slot < 0) {
+                return;
+            }
+            removeFromTable(idTable, slot, mix(id));
+            removeName(slot);
+            ids[slot] = 0;
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeSlotCount++] = slot;
+            memberCount--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void putTeam(long id, String name) {
+        putTeam(id, name, true);
+    }
+
+    void removeTeam(long id) {
+        long stamp = lock.writeLock();
+        try {
+            Integer slot = teamSlotsById.get(id);
+            if (slot != null) {
+                teamNames[slot] = null;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void putMember(long id, String username, int age, Long teamId, boolean overwrite) {
+        if (id == 0) {
+            throw new IllegalArgumentException("member id must not be 0");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOfId(id);
+            if (!overwrite && (slot >= 0 || removedWhileLoading != null && removedWhileLoading.contains(id))) {
+                return;
+            }
+            if (slot < 0) {
+                slot = allocateSlot();
+                ids[slot] = id;
+                insertId(slot);
+                setName(slot, username);
+                memberCount++;
+            } else if (username == null ? nameLengths[slot] != NULL_NAME : !nameEquals(slot, username)) {
+                removeName(slot);
+                setName(slot, username);
+            }
+            ages[slot] = age;
+            teamSlots[slot] = teamId == null ? NO_TEAM : teamSlot(teamId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void putTeam(long id, String name, boolean overwrite) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = teamSlot(id);
+            if (overwrite || teamNames[slot] == null) {
+                teamNames[slot] = name;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean fill(int slot, MemberView view) {
+        if (slot < 0) {
+            return false;
+        }
+        int teamSlot = teamSlots[slot];
+        int nameLength = nameLengths[slot];
+        view.set(ids[slot], ages[slot],
+            nameLength == NULL_NAME ? null : names, nameOffsets[slot], Math.max(nameLength, 0),
+            teamSlot == NO_TEAM ? 0 : teamIds[teamSlot],
+            teamSlot == NO_TEAM ? null : teamNames[teamSlot]);
+        return true;
+    }
+
+    private int slotOfId(long id) {
+        int[] table = idTable;
+        long[] ids = this.ids;
+        int mask = table.length - 1;
+        for (int i = mix(id) & mask, probes = 0; probes < table.length; i = (i + 1) & mask, probes++) {
+            int entry = table[i];
+            if (entry == FREE) {
+                return -1;
+            }
+            if (entry > 0 && ids[entry - 1] == id) {
+                return entry - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOfUsername(String username, int hash) {
+        int[] table = nameTable;
+        int[] hashes = nameHashes;
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask, probes = 0; probes < table.length; i = (i + 1) & mask, probes++) {
+            int entry = table[i];
+            if (entry == FREE) {
+                return -1;
+            }
+            if (entry > 0 && hashes[entry - 1] == hash && nameEquals(entry - 1, username)) {
+                return entry - 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int slot, String username) {
+        int length = nameLengths[slot];
+        if (length != username.length()) {
+            return false;
+        }
+        char[] chars = names;
+        int offset = nameOffsets[slot];
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != username.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamSlots = Arrays.copyOf(teamSlots, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+            nameHashes = Arrays.copyOf(nameHashes, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void setName(int slot, String username) {
+        if (username == null) {
+            nameOffsets[slot] = 0;
+            nameLengths[slot] = NULL_NAME;
+            nameHashes[slot] = 0;
+            return;
+        }
+        int length = username.length();
+        if (namesLength + length > names.length) {
+            growOrCompactNames(length);
+        }
+        username.getChars(0, length, names, namesLength);
+        nameOffsets[slot] = namesLength;
+        nameLengths[slot] = length;
+        nameHashes[slot] = username.hashCode();
+        namesLength += length;
+        insertName(slot);
+    }
+
+    private void removeName(int slot) {
+        if (nameLengths[slot] == NULL_NAME) {
+            return;
+        }
+        removeFromTable(nameTable, slot, spread(nameHashes[slot]));
+        garbageChars += nameLengths[slot];
+    }
+
+    private void growOrCompactNames(int required) {
+        int live = namesLength - garbageChars;
+        int capacity = names.length;
+        while (capacity < (live + required) * 3 / 2) {
+            capacity *= 2;
+        }
+        if (garbageChars == 0) {
+            names = Arrays.copyOf(names, capacity);
+            return;
+        }
+        char[] compacted = new char[capacity];
+        int length = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != 0 && nameLengths[slot] != NULL_NAME) {
+                System.arraycopy(names, nameOffsets[slot], compacted, length, nameLengths[slot]);
+                nameOffsets[slot] = length;
+                length += nameLengths[slot];
+            }
+        }
+        names = compacted;
+        namesLength = length;
+        garbageChars = 0;
+    }
+
+    private int teamSlot(long teamId) {
+        Integer slot = teamSlotsById.get(teamId);
+        if (slot != null) {
+            return slot;
+        }
+        if (teamCount == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+            teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+        }
+        teamIds[teamCount] = teamId;
+        teamSlotsById.put(teamId, teamCount);
+        return teamCount++;
+    }
+
+    private void insertId(int slot) {
+        if ((idTableUsed + 1) * 2 > idTable.length) {
+            idTable = rehash(idTable, true);
+            idTableUsed = memberCount;
+        }
+        if (insert(idTable, slot, mix(ids[slot]))) {
+            idTableUsed++;
+        }
+    }
+
+    private void insertName(int slot) {
+        if ((nameTableUsed + 1) * 2 > nameTable.length) {
+            nameTable = rehash(nameTable, false);
+            nameTableUsed = countNames();
+        }
+        if (insert(nameTable, slot, spread(nameHashes[slot]))) {
+            nameTableUsed++;
+        }
+    }
+
+    /**
+     * @return 빈 칸을 새로 썼으면 true, 삭제된 칸을 다시 썼으면 false
+     */
+    private static boolean insert(int[] table, int slot, int hash) {
+        int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            if (table[i] <= 0) {
+                boolean free = table[i] == FREE;
+                table[i] = slot + 1;
+                return free;
+            }
+        }
+    }
+
+    private static void removeFromTable(int[] table, int slot, int hash) {
+        int mask = table.length - 1;
+        for (int i = hash & mask, probes = 0; probes < table.length; i = (i + 1) & mask, probes++) {
+            if (table[i] == FREE) {
+                return;
+            }
+            if (table[i] == slot + 1) {
+                table[i] = REMOVED;
+                return;
+            }
+        }
+    }
+
+    // 삭제된 칸을 없애고, 살아 있는 항목의 4 배 크기로 다시 만든다.
+    private int[] rehash(int[] table, boolean byId) {
+        int live = byId ? memberCount : countNames();
+        int capacity = Integer.highestOneBit(Math.max(live * 4, INITIAL_CAPACITY) - 1) << 1;
+        int[] rehashed = new int[capacity];
+        for (int entry : table) {
+            if (entry > 0) {
+                int slot = entry - 1;
+                insert(rehashed, slot, byId ? mix(ids[slot]) : spread(nameHashes[slot]));
+            }
+        }
+        return rehashed;
+    }
+
+    private int countNames() {
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != 0 && nameLengths[slot] != NULL_NAME) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int mix(long id) {
+        return spread((int) (id ^ (id >>> 32)));
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
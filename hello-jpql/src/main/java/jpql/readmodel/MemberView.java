@@ -0,0 +1,53 @@
+package jpql.readmodel;
+
+import lombok.Getter;
+
+/**
+ * MemberReadModel 조회 결과를 담는 재사용 객체(flyweight). 조회할 때마다 값을 덮어쓴다.
+ * 사용자 이름은 {@link #getUsername()} 을 호출할 때만 String 으로 만든다.
+ */
+public class MemberView {
+
+    @Getter
+    private long id;
+    @Getter
+    private int age;
+    // 팀이 없으면 0
+    @Getter
+    private long teamId;
+    @Getter
+    private String teamName;
+
+    private char[] names;
+    private int nameOffset;
+    private int nameLength;
+
+    void set(long id, int age, char[] names, int nameOffset, int nameLength, long teamId, String teamName) {
+        this.id = id;
+        this.age = age;
+        this.names = names;
+        this.nameOffset = nameOffset;
+        this.nameLength = nameLength;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+
+    public String getUsername() {
+        return names == null ? null : new String(names, nameOffset, nameLength);
+    }
+
+    public boolean hasTeam() {
+        return teamId != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberView{" +
+            "id=" + id +
+            ", username='" + getUsername() + '\'' +
+            ", age=" + age +
+            ", teamId=" + teamId +
+            ", teamName='" + teamName + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,91 @@
+package jpql.readmodel;
+
+import jpql.Member;
+import jpql.Team;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.tuple.entity.EntityMetamodel;
+
+/**
+ * 커밋된 Member, Team 변경을 MemberReadModel 에 반영한다. 값은 flush 할 때의 상태 배열에서 읽는다.
+ */
+class ReadModelListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+    private final MemberReadModel model;
+
+    ReadModelListener(MemberReadModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        apply(event.getEntity(), (Long) event.getId(), event.getState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        apply(event.getEntity(), (Long) event.getId(), event.getState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            model.removeMember((Long) event.getId());
+        } else if (event.getEntity() instanceof Team) {
+            model.removeTeam((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    // 하이버네이트 5.3 에서는 아직 추상 메서드라서 구현해야 한다. 하이버네이트는 requiresPostCommitHandling 을 호출한다.
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void apply(Object entity, Long id, Object[] state, EntityPersister persister) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        if (entity instanceof Member) {
+            Object team = state[metamodel.getPropertyIndex("team")];
+            model.putMember(id,
+                (String) state[metamodel.getPropertyIndex("username")],
+                (Integer) state[metamodel.getPropertyIndex("age")],
+                team == null ? null : teamId(team));
+        } else if (entity instanceof Team) {
+            model.putTeam(id, (String) state[metamodel.getPropertyIndex("name")]);
+        }
+    }
+
+    private static Long teamId(Object team) {
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+}
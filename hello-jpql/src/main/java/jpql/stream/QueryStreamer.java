@@ -0,0 +1,113 @@
+package jpql.stream;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import jpql.query.ReadOnly;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+/**
+ * 조회 결과를 한 번에 List 로 만들지 않고 앞으로만 읽는 커서로 한 행씩 흘려보낸다.
+ * <p>
+ * getResultList() 는 전체 결과를 메모리에 올리고 모든 엔티티를 영속성 컨텍스트에 남겨 둔다.
+ * 여기서는 fetchSize 만큼씩 JDBC 로 받아오고, clearInterval 행마다 영속성 컨텍스트를 비워서
+ * 행 수와 상관없이 메모리 사용량이 일정하다.
+ * <p>
+ * {@link #readOnly()} 로 만든 QueryStreamer 는 엔티티를 읽기 전용으로 읽어서({@link ReadOnly}) 스냅샷을 만들지 않고,
+ * 쿼리 전에 flush 하지도 않는다. 기본 모드는 일반 쿼리와 같이 flush 하고 엔티티를 변경 감지 대상으로 읽는다.
+ * <p>
+ * 주의: clear 로 이미 흘려보낸 엔티티는 준영속 상태가 되고, 같은 EntityManager 의 flush 되지 않은
+ * 변경도 사라진다. 조회 전용(export) EntityManager 에서 사용하고, 스트림은 try-with-resources 로 닫는다.
+ *
+ * <pre>{@code
+ * try (Stream<Member> members = new QueryStreamer(em).readOnly().stream("select m from Member m", Member.class)) {
+ *     members.forEach(writer::write);
+ * }
+ * }</pre>
+ */
+public class QueryStreamer {
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_CLEAR_INTERVAL = 1000;
+
+    private final EntityManager em;
+    private final int fetchSize;
+    private final int clearInterval;
+    private final boolean readOnly;
+
+    public QueryStreamer(EntityManager em) {
+        this(em, DEFAULT_FETCH_SIZE, DEFAULT_CLEAR_INTERVAL);
+    }
+
+    public QueryStreamer(EntityManager em, int fetchSize, int clearInterval) {
+        this(em, fetchSize, clearInterval, false);
+    }
+
+    private QueryStreamer(EntityManager em, int fetchSize, int clearInterval, boolean readOnly) {
+        if (fetchSize < 1 || clearInterval < 1) {
+            throw new IllegalArgumentException(
+                "fetchSize and clearInterval must be positive: " + fetchSize + ", " + clearInterval);
+        }
+        this.em = em;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+        this.readOnly = readOnly;
+    }
+
+    public QueryStreamer readOnly() {
+        return new QueryStreamer(em, fetchSize, clearInterval, true);
+    }
+
+    public <T> Stream<T> stream(String jpql, Class<T> resultClass) {
+        return stream(em.createQuery(jpql, resultClass));
+    }
+
+    public <T> Stream<T> stream(CriteriaQuery<T> criteriaQuery) {
+        return stream(em.createQuery(criteriaQuery));
+    }
+
+    public <T> Stream<T> stream(TypedQuery<T> query) {
+        ScrollableResults results = (readOnly ? ReadOnly.query(query) : query).unwrap(Query.class)
+            .setFetchSize(fetchSize)
+            .scroll(ScrollMode.FORWARD_ONLY);
+
+        return StreamSupport.stream(new ScrollSpliterator<T>(results), false)
+            .onClose(results::close);
+    }
+
+    private class ScrollSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final ScrollableResults results;
+        private long count;
+
+        ScrollSpliterator(ScrollableResults results) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.results = results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super T> action) {
+            // 다음 행을 읽기 전에 비워야 방금 넘겨준 엔티티까지 함께 정리된다.
+            if (count > 0 && count % clearInterval == 0) {
+                em.clear();
+            }
+            if (!results.next()) {
+                return false;
+            }
+            count++;
+
+            Object[] row = results.get();
+            action.accept((T) (row.length == 1 ? row[0] : row));
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package jpql.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import jpql.Member;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * 100만 건 Member 를 -Xmx64m (surefire argLine) 에서 끝까지 스트리밍한다.
+ * getResultList() 로 읽으면 OutOfMemoryError 가 나는 크기이고, 스트리밍하는 동안 영속성 컨텍스트 크기와
+ * GC 후 남는 힙이 행 수에 따라 늘어나지 않는지 검사한다.
+ */
+class QueryStreamerTest {
+
+    private static final int MEMBER_COUNT = 1_000_000;
+    private static final int CHECK_INTERVAL = 100_000;
+    // 스트리밍 전보다 GC 후 힙이 이만큼 넘게 늘면 행이 어딘가에 남아 있는 것이다.
+    private static final long MAX_RETAINED_BYTES = 16L * 1024 * 1024;
+
+    @TempDir
+    Path databaseDirectory;
+
+    private EntityManagerFactory emf;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        // DB 가 테스트와 같은 힙을 쓰지 않도록 파일 DB 에 두고 페이지 캐시(KB)를 줄인다.
+        properties.put("javax.persistence.jdbc.url",
+            "jdbc:h2:file:" + databaseDirectory.resolve("stream").toAbsolutePath() + ";CACHE_SIZE=4096");
+        properties.put("hibernate.show_sql", "false");
+        properties.put("hibernate.format_sql", "false");
+        properties.put("hibernate.use_sql_comments", "false");
+        properties.put("hibernate.hikari.leakDetectionThreshold", "0");
+        emf = Persistence.createEntityManagerFactory("hello", properties);
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.createNativeQuery("insert into Member (id, username, age, type)"
+                + " select x, concat('member', x), mod(x, 100), 'USER' from system_range(1, " + MEMBER_COUNT + ")")
+            .executeUpdate();
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emf.close();
+    }
+
+    @Test
+    void streamsAllRowsWithBoundedPersistenceContextAndHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        EntityManager em = emf.createEntityManager();
+        Session session = em.unwrap(Session.class);
+        try (Stream<Member> members = new QueryStreamer(em).stream("select m from Member m", Member.class)) {
+            long baseline = usedHeapAfterGc(memory);
+            long[] maxRetained = new long[1];
+            long[] count = new long[1];
+
+            members.forEach(member -> {
+                if (++count[0] % CHECK_INTERVAL == 0) {
+                    int managed = session.getStatistics().getEntityCount();
+                    assertTrue(managed <= QueryStreamer.DEFAULT_CLEAR_INTERVAL,
+                        managed + " entities managed after " + count[0] + " rows");
+                    maxRetained[0] = Math.max(maxRetained[0], usedHeapAfterGc(memory) - baseline);
+                }
+            });
+
+            assertEquals(MEMBER_COUNT, count[0]);
+            assertTrue(maxRetained[0] < MAX_RETAINED_BYTES,
+                "retained " + maxRetained[0] / 1024 + " KB while streaming");
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+}
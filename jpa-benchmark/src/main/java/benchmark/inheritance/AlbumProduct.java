@@ -0,0 +1,13 @@
+package benchmark.inheritance;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class AlbumProduct extends Product {
+
+    private String artist;
+    private String etc;
+
+}
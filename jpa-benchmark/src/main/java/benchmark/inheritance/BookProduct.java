@@ -0,0 +1,13 @@
+package benchmark.inheritance;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BookProduct extends Product {
+
+    private String author;
+    private String isbn;
+
+}
@@ -0,0 +1,152 @@
+package benchmark.inheritance;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import jpabook.jpashop.query.PolymorphicQueries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 같은 상품 3,000 개(Book, Album, Movie 1/3 씩)를 상속 전략만 바꿔서 조회하는 처리량(ops/sec).
+ * <ul>
+ *   <li>all: select p from Product p</li>
+ *   <li>typeRestriction: where type(p) = BookProduct</li>
+ *   <li>subtype: select b from BookProduct b</li>
+ *   <li>baseColumns: Product 컬럼만 DTO 로</li>
+ *   <li>allBySubtype: 자식 타입마다 한 번씩 조회</li>
+ *   <li>page: 100 개 페이지를 부모 타입으로 조회</li>
+ *   <li>pageByIds: 100 개 페이지의 id 만 조회한 뒤 타입별 IN 쿼리</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InheritanceStrategyBenchmark {
+
+    private static final int PRODUCT_COUNT = 3_000;
+    private static final int PAGE_OFFSET = 1_500;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"joined", "single-table", "table-per-class"})
+    private String strategy;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:" + strategy + ";DB_CLOSE_DELAY=-1");
+        emf = Persistence.createEntityManagerFactory("inheritance-" + strategy, properties);
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product;
+            switch (i % 3) {
+                case 0:
+                    BookProduct book = new BookProduct();
+                    book.setAuthor("author");
+                    book.setIsbn("isbn");
+                    product = book;
+                    break;
+                case 1:
+                    AlbumProduct album = new AlbumProduct();
+                    album.setArtist("artist");
+                    product = album;
+                    break;
+                default:
+                    MovieProduct movie = new MovieProduct();
+                    movie.setDirector("director");
+                    movie.setActor("actor");
+                    product = movie;
+                    break;
+            }
+            product.setName("product" + i);
+            product.setPrice(10000 + i);
+            product.setStockQuantity(100);
+            em.persist(product);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public List<Product> all() {
+        return query(em -> em.createQuery("select p from Product p", Product.class).getResultList());
+    }
+
+    @Benchmark
+    public List<Product> typeRestriction() {
+        return query(em -> em.createQuery("select p from Product p where type(p) = BookProduct", Product.class)
+            .getResultList());
+    }
+
+    @Benchmark
+    public List<BookProduct> subtype() {
+        return query(em -> new PolymorphicQueries<>(em, Product.class).findAll(BookProduct.class));
+    }
+
+    @Benchmark
+    public List<ProductSummary> baseColumns() {
+        return query(em -> new PolymorphicQueries<>(em, Product.class)
+            .findBaseColumns(ProductSummary.class, "id", "name", "price", "stockQuantity"));
+    }
+
+    @Benchmark
+    public List<Product> allBySubtype() {
+        return query(em -> new PolymorphicQueries<>(em, Product.class).findAllBySubtype());
+    }
+
+    @Benchmark
+    public List<Product> page() {
+        return query(em -> em.createQuery("select p from Product p order by p.id", Product.class)
+            .setFirstResult(PAGE_OFFSET)
+            .setMaxResults(PAGE_SIZE)
+            .getResultList());
+    }
+
+    @Benchmark
+    public List<Product> pageByIds() {
+        return query(em -> {
+            List<Long> ids = em.createQuery("select p.id from Product p order by p.id", Long.class)
+                .setFirstResult(PAGE_OFFSET)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+            return new PolymorphicQueries<>(em, Product.class).findByIds(ids, PAGE_SIZE);
+        });
+    }
+
+    private <T> T query(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package benchmark.inheritance;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class MovieProduct extends Product {
+
+    private String director;
+    private String actor;
+
+}
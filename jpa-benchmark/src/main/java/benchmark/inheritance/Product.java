@@ -0,0 +1,18 @@
+package benchmark.inheritance;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 상속 전략 비교용 엔티티. 매핑은 META-INF/inheritance/*.xml 에서 전략마다 따로 한다.
+ */
+@Getter
+@Setter
+public abstract class Product {
+
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+}
@@ -0,0 +1,100 @@
+package benchmark.jpashop;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Item;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AuditInterceptor 를 켜고 끈 대량 저장/변경 처리량(entities/sec).
+ * <ul>
+ *   <li>persistBooks: 감사 대상(Item) 2,000 건을 50 건마다 flush/clear 하며 저장</li>
+ *   <li>updateBooks: 상품 2,000 건을 읽고 10% 만 바꿔서 flush (바뀐 엔티티만 lastModified* 를 채운다)</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditBenchmark {
+
+    private static final int COUNT = 2_000;
+    private static final int CHUNK_SIZE = 50;
+
+    @Param({"off", "on"})
+    private String audit;
+
+    private EntityManagerFactory emf;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        if (audit.equals("off")) {
+            overrides.put("hibernate.session_factory.session_scoped_interceptor", NoAuditInterceptor.class.getName());
+        }
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < COUNT; i++) {
+                em.persist(JpaShopFixture.newBook("stock" + i, 10000));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void persistBooks() {
+        JpaShopFixture.inTransaction(emf, em -> {
+            em.unwrap(Session.class).setJdbcBatchSize(CHUNK_SIZE);
+            for (int i = 0; i < COUNT; i++) {
+                em.persist(JpaShopFixture.newBook("book" + i, 10000));
+                if ((i + 1) % CHUNK_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void updateBooks() {
+        int price = ++round;
+        JpaShopFixture.inTransaction(emf, em -> {
+            List<Item> items = em.createQuery("select i from Item i where i.name like 'stock%'", Item.class)
+                .getResultList();
+            for (int i = 0; i < items.size(); i += 10) {
+                items.get(i).setPrice(price);
+            }
+        });
+    }
+
+    public static class NoAuditInterceptor extends EmptyInterceptor {
+    }
+
+}
@@ -0,0 +1,104 @@
+package benchmark.jpashop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.ingest.BulkOrderIngester;
+import jpabook.jpashop.ingest.IngestResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 주문 대량 저장 처리량(orders/sec). JpaMain 처럼 한 트랜잭션에서 em.persist 만 반복하는 방식과
+ * BulkOrderIngester(JDBC batch + chunk 단위 flush/clear)를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkIngestBenchmark {
+
+    private static final int ORDER_COUNT = 2_000;
+
+    private EntityManagerFactory batchedEmf;
+    private EntityManagerFactory unbatchedEmf;
+    private Member batchedMember;
+    private Book batchedBook;
+    private Member unbatchedMember;
+    private Book unbatchedBook;
+
+    @Setup
+    public void setUp() {
+        batchedEmf = JpaShopFixture.createEntityManagerFactory();
+
+        // 기존 경로: JDBC batch 없이 한 건씩 INSERT
+        Map<String, Object> unbatched = new HashMap<>();
+        unbatched.put("hibernate.jdbc.batch_size", "0");
+        unbatched.put("hibernate.order_inserts", "false");
+        unbatchedEmf = JpaShopFixture.createEntityManagerFactory(unbatched);
+
+        batchedMember = JpaShopFixture.newMember("member");
+        batchedBook = JpaShopFixture.newBook("book", 10000);
+        JpaShopFixture.inTransaction(batchedEmf, em -> {
+            em.persist(batchedMember);
+            em.persist(batchedBook);
+        });
+
+        unbatchedMember = JpaShopFixture.newMember("member");
+        unbatchedBook = JpaShopFixture.newBook("book", 10000);
+        JpaShopFixture.inTransaction(unbatchedEmf, em -> {
+            em.persist(unbatchedMember);
+            em.persist(unbatchedBook);
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchedEmf.close();
+        unbatchedEmf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_COUNT)
+    public void persistOneByOne() {
+        List<Order> orders = newOrders(unbatchedMember, unbatchedBook);
+        JpaShopFixture.inTransaction(unbatchedEmf, em -> {
+            for (Order order : orders) {
+                em.persist(order);
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_COUNT)
+    public IngestResult bulkIngest() {
+        return new BulkOrderIngester(batchedEmf).ingest(newOrders(batchedMember, batchedBook));
+    }
+
+    private List<Order> newOrders(Member member, Book book) {
+        List<Order> orders = new ArrayList<>(ORDER_COUNT);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orders.add(JpaShopFixture.newOrder(member, book, book));
+        }
+        return orders;
+    }
+
+}
@@ -0,0 +1,120 @@
+package benchmark.jpashop;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.bulk.BulkOperations;
+import jpabook.jpashop.bulk.BulkResult;
+import jpabook.jpashop.domain.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 상품 10만 건 가격 수정 처리량(rows/sec). BulkOperations.repriceItems 를 chunk 크기별로 실행하고,
+ * managed 개의 상품이 영속성 컨텍스트에 있을 때 버전이 바뀐 엔티티를 refresh 하는 비용을 함께 잰다.
+ * 비교 대상(entities)은 상품을 chunk 크기만큼 엔티티로 읽어서 변경 감지로 수정하는 방식이다. (managed 와 무관)
+ * percent 가 0 이어도 모든 행의 version 을 올리므로 매번 모든 행이 수정된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BulkUpdateBenchmark {
+
+    private static final int ITEM_COUNT = 100_000;
+
+    @Param({"1000", "10000", "100000"})
+    private int chunkSize;
+
+    @Param({"0", "1000"})
+    private int managed;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.hikari.leakDetectionThreshold", "0");
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            em.createNativeQuery("insert into Item (ITEM_ID, DTYPE, name, price, stockQuantity, version)"
+                    + " select X, 'Book', concat('book', X), 10000, 100, 0 from system_range(1, ?1)")
+                .setParameter(1, ITEM_COUNT)
+                .executeUpdate();
+            em.createNativeQuery("insert into Book (ITEM_ID, author, isbn)"
+                    + " select X, 'author', 'isbn' from system_range(1, ?1)")
+                .setParameter(1, ITEM_COUNT)
+                .executeUpdate();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEM_COUNT)
+    public BulkResult bulk() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            if (managed > 0) {
+                em.createQuery("select i from Item i where i.id <= :id", Item.class)
+                    .setParameter("id", (long) managed)
+                    .getResultList();
+            }
+            BulkResult result = new BulkOperations(em, chunkSize).repriceItems(0);
+            if (result.getAffectedRows() != ITEM_COUNT) {
+                throw new IllegalStateException("updated " + result.getAffectedRows() + " of " + ITEM_COUNT);
+            }
+            return result;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEM_COUNT)
+    public int entities() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            int updated = 0;
+            for (long fromId = 1; fromId <= ITEM_COUNT; fromId += chunkSize) {
+                List<Item> items = em.createQuery("select i from Item i where i.id between :fromId and :toId",
+                        Item.class)
+                    .setParameter("fromId", fromId)
+                    .setParameter("toId", fromId + chunkSize - 1)
+                    .getResultList();
+                for (Item item : items) {
+                    item.setPrice(item.getPrice() + 1);
+                    updated++;
+                }
+                em.flush();
+                em.clear();
+            }
+            em.getTransaction().commit();
+            return updated;
+        } finally {
+            em.close();
+        }
+    }
+
+}
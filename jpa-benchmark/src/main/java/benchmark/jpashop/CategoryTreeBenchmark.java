@@ -0,0 +1,153 @@
+package benchmark.jpashop;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.category.CategoryTreeService;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 10,000 노드 카테고리 트리(자식 10 개씩, 깊이 4)에서 서브트리와 서브트리 상품 5,000 개를 읽는 시간(ms/op).
+ * root 는 전체 트리, branch 는 루트의 첫 번째 자식 아래(약 1,000 노드)이다.
+ * <ul>
+ *   <li>lazy: category.getChild(), getItems() 를 따라간다. 노드마다 쿼리가 나간다.</li>
+ *   <li>cte: 재귀 CTE 한 번으로 서브트리를 읽는다. 상품은 CTE 를 CATEGORY_ITEM 과 조인한 쿼리 한 번으로 읽는다.</li>
+ *   <li>cached: 캐시된 CategoryTree 에서 꺼낸다.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryTreeBenchmark {
+
+    private static final int CATEGORY_COUNT = 10_000;
+    private static final int CHILDREN = 10;
+    private static final int ITEM_COUNT = 5_000;
+
+    @Param({"root", "branch"})
+    private String subtree;
+
+    private EntityManagerFactory emf;
+    private CategoryTreeService service;
+    private long rootId;
+    private long subtreeId;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        service = new CategoryTreeService();
+
+        List<Category> categories = new ArrayList<>();
+        JpaShopFixture.inTransaction(emf, em -> {
+            Category root = newCategory("root");
+            em.persist(root);
+            categories.add(root);
+            // 너비 우선으로 자식을 10 개씩 붙인다.
+            for (int parent = 0; categories.size() < CATEGORY_COUNT; parent++) {
+                for (int i = 0; i < CHILDREN && categories.size() < CATEGORY_COUNT; i++) {
+                    Category child = newCategory("category" + categories.size());
+                    categories.get(parent).addChildCategory(child);
+                    em.persist(child);
+                    categories.add(child);
+                }
+            }
+            // 상품은 리프 카테고리에 고르게 나눈다.
+            int firstLeaf = (CATEGORY_COUNT - 1) / CHILDREN + 1;
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                Book book = JpaShopFixture.newBook("book" + i, 10000 + i);
+                em.persist(book);
+                categories.get(firstLeaf + i % (CATEGORY_COUNT - firstLeaf)).getItems().add(book);
+            }
+        });
+        rootId = categories.get(0).getId();
+        subtreeId = subtree.equals("root") ? rootId : categories.get(1).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public int subtreeLazy() {
+        return withEntityManager(em -> walkLazy(em.find(Category.class, subtreeId)).size());
+    }
+
+    @Benchmark
+    public int subtreeCte() {
+        return withEntityManager(em -> service.loadTree(em, subtreeId).size());
+    }
+
+    @Benchmark
+    public int subtreeCached() {
+        return withEntityManager(em -> service.getTree(em, rootId).subtreeIds(subtreeId).length);
+    }
+
+    @Benchmark
+    public int itemsLazy() {
+        return withEntityManager(em -> {
+            Set<Item> items = new HashSet<>();
+            for (Category category : walkLazy(em.find(Category.class, subtreeId))) {
+                items.addAll(category.getItems());
+            }
+            return items.size();
+        });
+    }
+
+    @Benchmark
+    public int itemsCte() {
+        return withEntityManager(em -> service.findItemsUnder(em, rootId, subtreeId).size());
+    }
+
+    private static List<Category> walkLazy(Category root) {
+        List<Category> nodes = new ArrayList<>();
+        Deque<Category> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Category category = stack.pop();
+            nodes.add(category);
+            category.getChild().forEach(stack::push);
+        }
+        return nodes;
+    }
+
+    private int withEntityManager(Function<EntityManager, Integer> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Category newCategory(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+}
@@ -0,0 +1,141 @@
+package benchmark.jpashop;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.cdc.ChangeCaptureListener;
+import jpabook.jpashop.cdc.ChangeEvent;
+import jpabook.jpashop.cdc.ChangePublisher;
+import jpabook.jpashop.cdc.ChangePublisher.OverflowPolicy;
+import jpabook.jpashop.cdc.ChangeSink;
+import jpabook.jpashop.cdc.FileChangeSink;
+import jpabook.jpashop.cdc.InMemoryChangeSink;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.order.OrderPlacementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OrderPlacementService 로 주문 한 건을 커밋하는 지연 시간 분포.
+ * 주문 한 건은 변경 이벤트 4 건이다. (Order, OrderItem, Delivery 저장은 ChangeCaptureListener,
+ * JDBC 로 차감한 Item 재고는 서비스에 등록한 {@link ChangeCaptureListener#stockChanges(ChangePublisher)} 가 커밋 후 발행)
+ * <ul>
+ *   <li>none: ChangeCaptureListener 없음</li>
+ *   <li>memory, file: InMemoryChangeSink, FileChangeSink</li>
+ *   <li>slow: 묶음마다 1 초 걸리는 sink(초당 500 건) + 용량 1,000 큐(DROP). sink 가 밀려도 커밋 시간이 늘지 않고 이벤트를 버리는지 본다.</li>
+ *   <li>slowBlock: slow 와 같은 sink, 큐에 BLOCK 5ms. 큐가 차면 커밋마다 이벤트 한 건당 최대 5ms 가 더해진다.
+ *   {@code -t 4} 로 돌리면 기다리는 스레드가 다른 스레드의 발행을 막지 않는지 본다.</li>
+ * </ul>
+ * 끝나면 발행/전달/버림 건수를 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeCaptureBenchmark {
+
+    @Param({"none", "memory", "file", "slow", "slowBlock"})
+    private String sink;
+
+    private EntityManagerFactory emf;
+    private ChangePublisher publisher;
+    private OrderPlacementService placementService;
+    private InMemoryChangeSink memorySink;
+    private Path file;
+    private Long memberId;
+    private Map<Long, Integer> itemCounts;
+
+    @Setup
+    public void setUp() throws Exception {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        switch (sink) {
+            case "none":
+                break;
+            case "memory":
+                memorySink = new InMemoryChangeSink();
+                publisher = new ChangePublisher(memorySink);
+                break;
+            case "file":
+                file = Files.createTempFile("changes", ".jsonl");
+                publisher = new ChangePublisher(new FileChangeSink(file));
+                break;
+            case "slow":
+                publisher = new ChangePublisher(new SlowSink(), 1_000, ChangePublisher.DEFAULT_BATCH_SIZE,
+                    OverflowPolicy.DROP, 0, TimeUnit.MILLISECONDS);
+                break;
+            case "slowBlock":
+                publisher = new ChangePublisher(new SlowSink(), 1_000, ChangePublisher.DEFAULT_BATCH_SIZE,
+                    OverflowPolicy.BLOCK, 5, TimeUnit.MILLISECONDS);
+                break;
+            default:
+                throw new IllegalArgumentException(sink);
+        }
+        placementService = new OrderPlacementService(emf);
+        if (publisher != null) {
+            ChangeCaptureListener.attach(emf, publisher);
+            placementService.addStockChangeListener(ChangeCaptureListener.stockChanges(publisher));
+        }
+
+        Member member = JpaShopFixture.newMember("member");
+        Book book = JpaShopFixture.newBook("book", 10000);
+        JpaShopFixture.inTransaction(emf, em -> {
+            em.persist(member);
+            em.persist(book);
+        });
+        memberId = member.getId();
+        itemCounts = Collections.singletonMap(book.getId(), 1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearEvents() {
+        if (memorySink != null) {
+            memorySink.clear();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (publisher != null) {
+            publisher.close();
+            System.out.printf("%n[%s] published=%d delivered=%d dropped=%d failed=%d batches=%d%n", sink,
+                publisher.getPublished(), publisher.getDelivered(), publisher.getDropped(), publisher.getFailed(),
+                publisher.getBatches());
+        }
+        if (file != null) {
+            Files.delete(file);
+        }
+        emf.close();
+    }
+
+    @Benchmark
+    public Long placeOrder() {
+        return placementService.placeOrder(memberId, itemCounts);
+    }
+
+    static class SlowSink implements ChangeSink {
+
+        @Override
+        public void accept(List<ChangeEvent> events) throws InterruptedException {
+            Thread.sleep(1000);
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package benchmark.jpashop;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.pool.PoolMetrics;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 16 개 스레드가 H2 tcp 서버에 짧은 트랜잭션(회원 조회 + 이름 검색)을 동시에 보낼 때의 처리량(tx/sec).
+ * <ul>
+ *   <li>builtin: 기존 설정. 하이버네이트 기본 커넥션 풀</li>
+ *   <li>hikari: HikariCP</li>
+ *   <li>hikari-query-cache: HikariCP + H2 세션별 쿼리 캐시(QUERY_CACHE_SIZE=64)</li>
+ * </ul>
+ * HikariCP 는 반복(iteration)마다 커넥션 대기 시간을 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ConnectionPoolBenchmark {
+
+    private static final int MEMBER_COUNT = 1_000;
+
+    @Param({"builtin", "hikari", "hikari-query-cache"})
+    private String pool;
+
+    private Server server;
+    private EntityManagerFactory emf;
+    private List<Long> memberIds;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+
+        Map<String, Object> overrides = new HashMap<>();
+        String url = "jdbc:h2:tcp://localhost:" + port + "/mem:pool;DB_CLOSE_DELAY=-1";
+        if (pool.equals("builtin")) {
+            overrides.put("hibernate.connection.provider_class",
+                "org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl");
+        }
+        if (pool.equals("hikari-query-cache")) {
+            url += ";QUERY_CACHE_SIZE=64";
+        }
+        overrides.put("javax.persistence.jdbc.url", url);
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        memberIds = new ArrayList<>();
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                Member member = JpaShopFixture.newMember("member" + i);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPoolMetrics() {
+        if (!pool.equals("builtin")) {
+            System.out.println(" " + PoolMetrics.of(emf));
+            PoolMetrics.reset(emf);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public void shortTransaction() {
+        int index = ThreadLocalRandom.current().nextInt(MEMBER_COUNT);
+        JpaShopFixture.inTransaction(emf, em -> {
+            em.find(Member.class, memberIds.get(index));
+            em.createQuery("select m from Member m where m.name = :name", Member.class)
+                .setParameter("name", "member" + index)
+                .getResultList();
+        });
+    }
+
+}
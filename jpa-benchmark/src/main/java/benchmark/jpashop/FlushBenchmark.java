@@ -0,0 +1,102 @@
+package benchmark.jpashop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 영속성 컨텍스트에 managed 개(Member 와 Book 절반씩)의 엔티티가 있을 때, 그중 10 개만 바꾸고 flush 하는 시간.
+ * <p>
+ * 스냅샷 비교와 바이트코드 향상 변경 감지를 비교하려면 jpashop 을 두 번 설치해서 각각 실행한다.
+ * <pre>
+ * mvn -f ex2-jpashop clean install                                  # 스냅샷 비교
+ * mvn -f ex2-jpashop clean install -Penhance -Denhance.dirtyTracking=true   # 변경 감지
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FlushBenchmark {
+
+    private static final int MODIFIED_COUNT = 10;
+
+    @Param({"1000", "10000", "50000"})
+    private int managed;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private List<Member> members;
+    private List<Book> books;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < managed / 2; i++) {
+                em.persist(JpaShopFixture.newMember("member" + i));
+                em.persist(JpaShopFixture.newBook("book" + i, 10000));
+                if (i % 50 == 49) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+        System.out.println(" [dirty tracking] "
+            + SelfDirtinessTracker.class.isAssignableFrom(Book.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        members = em.createQuery("select m from Member m", Member.class).getResultList();
+        books = em.createQuery("select b from Book b", Book.class).getResultList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public void modifyAndFlush() {
+        round++;
+        for (int i = 0; i < MODIFIED_COUNT / 2; i++) {
+            int index = (round * MODIFIED_COUNT + i) % members.size();
+            members.get(index).setName("member" + round);
+            Book book = books.get(index);
+            book.setPrice(round);
+            book.setLastModifiedBy("member" + round);
+        }
+        em.flush();
+    }
+
+}
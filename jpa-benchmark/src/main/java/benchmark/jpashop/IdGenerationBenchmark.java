@@ -0,0 +1,99 @@
+package benchmark.jpashop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 식별자 최적화기별 INSERT 처리량과 10,000 건당 실행한 SQL 수.
+ * none 은 allocationSize 와 상관없이 INSERT 마다 시퀀스를 호출하는 기존 방식이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int INSERT_COUNT = 10_000;
+
+    @Param({"none", "pooled-lo", "jpabook.jpashop.id.LockFreePooledLoOptimizer"})
+    private String optimizer;
+
+    private EntityManagerFactory emf;
+    private Statistics statistics;
+    private long invocations;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.id.optimizer.pooled.preferred", optimizer);
+        overrides.put("hibernate.generate_statistics", "true");
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        invocations = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        if (invocations > 0) {
+            System.out.printf(" [%s] statements per %,d inserts: %d%n", optimizer, INSERT_COUNT,
+                statistics.getPrepareStatementCount() / invocations);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_COUNT)
+    public void insertMembers() {
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < INSERT_COUNT; i++) {
+                em.persist(JpaShopFixture.newMember("member" + i));
+                if (i % 50 == 49) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+        invocations++;
+    }
+
+    // 여러 스레드가 같은 시퀀스에서 식별자를 나눠 받는 경우
+    @Benchmark
+    @Threads(8)
+    public Long insertMemberConcurrently() {
+        Member member = JpaShopFixture.newMember("member");
+        JpaShopFixture.inTransaction(emf, em -> em.persist(member));
+        return member.getId();
+    }
+
+}
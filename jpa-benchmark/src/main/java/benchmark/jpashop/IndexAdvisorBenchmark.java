@@ -0,0 +1,141 @@
+package benchmark.jpashop;
+
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.query.CatalogQueries;
+import jpabook.jpashop.query.OrderRangeQueries;
+import jpabook.jpashop.schema.IndexAdvisor;
+import jpabook.jpashop.schema.IndexProposal;
+import jpabook.jpashop.sql.InstrumentedConnectionProvider;
+import jpabook.jpashop.sql.SqlStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * IndexAdvisor 가 제안한 인덱스를 만들기 전(mapped)과 후(advised)의 조회 시간(us/op).
+ * 상품 100,000 개, 최근 24 개월의 주문 200,000 건. 2차 캐시, 쿼리 캐시는 끈다.
+ * 준비 단계에서 쿼리를 한 번씩 실행해서 SqlStatistics 에 기록한 뒤 IndexAdvisor 를 실행하고, 제안된 DDL 을 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexAdvisorBenchmark {
+
+    private static final int ITEM_COUNT = 100_000;
+    private static final int ORDER_COUNT = 200_000;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final Duration HISTORY = Duration.ofDays(730);
+
+    @Param({"mapped", "advised"})
+    private String indexes;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.cache.use_second_level_cache", "false");
+        overrides.put("hibernate.cache.use_query_cache", "false");
+        overrides.put("hibernate.hikari.leakDetectionThreshold", "0");
+        // 실행된 SQL 도 분석하도록 계측한다.
+        InstrumentedConnectionProvider.enable(overrides);
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        long[] memberId = new long[1];
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            memberId[0] = member.getId();
+        });
+        JpaShopFixture.inTransaction(emf, em -> {
+            // 시퀀스로 받는 식별자와 겹치지 않게 큰 값부터 쓴다.
+            em.createNativeQuery("insert into Item (ITEM_ID, DTYPE, name, price, stockQuantity, version)"
+                    + " select 1000000 + X, 'Book', concat('book', X), 10000, 100, 0 from system_range(1, ?1)")
+                .setParameter(1, ITEM_COUNT)
+                .executeUpdate();
+            em.createNativeQuery("insert into Book (ITEM_ID, author, isbn)"
+                    + " select 1000000 + X, 'author', 'isbn' from system_range(1, ?1)")
+                .setParameter(1, ITEM_COUNT)
+                .executeUpdate();
+            em.createNativeQuery("insert into ORDERS (ORDER_ID, MEMBER_ID, orderDate, status, version)"
+                    + " select 1000000 + X, ?1, dateadd('SECOND', -X * ?2, ?3), 'ORDER', 0"
+                    + " from system_range(1, ?4)")
+                .setParameter(1, memberId[0])
+                .setParameter(2, HISTORY.getSeconds() / ORDER_COUNT)
+                .setParameter(3, NOW)
+                .setParameter(4, ORDER_COUNT)
+                .executeUpdate();
+            // H2 는 같은 파라미터로 다시 실행한 쿼리에 테이블이 바뀌지 않았으면 이전 결과를 돌려준다.
+            em.createNativeQuery("set OPTIMIZE_REUSE_RESULTS false").executeUpdate();
+        });
+
+        itemsByName();
+        recentOrders();
+
+        IndexAdvisor advisor = new IndexAdvisor(emf);
+        List<IndexProposal> proposals = advisor.advise();
+        StringWriter ddl = new StringWriter();
+        try {
+            IndexAdvisor.writeDdl(proposals, ddl);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.printf("%n%s", ddl);
+        if (indexes.equals("advised")) {
+            advisor.apply(proposals);
+        }
+        SqlStatistics.of(emf).reset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public Object itemsByName() {
+        String name = "book" + (1 + ThreadLocalRandom.current().nextInt(ITEM_COUNT));
+        return query(em -> new CatalogQueries(em).findItemsByName(name));
+    }
+
+    // 최근 7 일 중 최신 100 건
+    @Benchmark
+    public Object recentOrders() {
+        return query(em -> new OrderRangeQueries(em).findOrders(NOW.minusDays(7), NOW, null, 100));
+    }
+
+    private Object query(Function<EntityManager, Object> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+}
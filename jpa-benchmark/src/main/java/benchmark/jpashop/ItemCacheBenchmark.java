@@ -0,0 +1,81 @@
+package benchmark.jpashop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.cache.CatalogCacheMetrics;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 새 EntityManager 에서 Item 을 id 로 조회한다. 2차 캐시가 켜져 있으면 JOINED 조인 쿼리 대신 캐시에서 읽는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemCacheBenchmark {
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    @Param({"1000"})
+    private int itemCount;
+
+    private EntityManagerFactory emf;
+    private long[] itemIds;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.cache.use_second_level_cache", String.valueOf(secondLevelCache));
+        overrides.put("hibernate.cache.use_query_cache", String.valueOf(secondLevelCache));
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        itemIds = new long[itemCount];
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < itemCount; i++) {
+                Book book = JpaShopFixture.newBook("book" + i, 10000);
+                em.persist(book);
+                itemIds[i] = book.getId();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (secondLevelCache) {
+            System.out.println(new CatalogCacheMetrics().snapshot(CatalogCacheMetrics.ITEM_REGION));
+        }
+        emf.close();
+    }
+
+    @Benchmark
+    public Item findItem() {
+        long id = itemIds[ThreadLocalRandom.current().nextInt(itemIds.length)];
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Item.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package benchmark.jpashop;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Album;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JOINED 상속 매핑의 Item 조회. 부모 타입 조회는 모든 자식 테이블을 outer join 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemQueryBenchmark {
+
+    @Param({"300"})
+    private int itemCount;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            for (int i = 0; i < itemCount; i++) {
+                Item item;
+                switch (i % 3) {
+                    case 0:
+                        item = JpaShopFixture.newBook("book" + i, 10000);
+                        break;
+                    case 1:
+                        Album album = new Album();
+                        album.setArtist("artist");
+                        item = album;
+                        break;
+                    default:
+                        Movie movie = new Movie();
+                        movie.setDirector("director");
+                        movie.setActor("actor");
+                        item = movie;
+                        break;
+                }
+                item.setName("item" + i);
+                item.setPrice(10000);
+                em.persist(item);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public List<Item> queryAllItems() {
+        return query("select i from Item i", Item.class);
+    }
+
+    @Benchmark
+    public List<Book> queryBooks() {
+        return query("select b from Book b", Book.class);
+    }
+
+    @Benchmark
+    public List<Item> queryItemsByType() {
+        return query("select i from Item i where type(i) = Book", Item.class);
+    }
+
+    private <T> List<T> query(String jpql, Class<T> resultClass) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(jpql, resultClass).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package benchmark.jpashop;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+
+/**
+ * jpaShop 영속성 유닛을 tcp 서버 대신 임베디드 인메모리 H2 로 띄운다.
+ */
+public final class JpaShopFixture {
+
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private JpaShopFixture() {
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory() {
+        return createEntityManagerFactory(new HashMap<>());
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        // 트라이얼마다 새로운 DB 를 사용한다.
+        properties.put("javax.persistence.jdbc.url",
+            "jdbc:h2:mem:jpashop" + DATABASE_SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.show_sql", "false");
+        properties.put("hibernate.format_sql", "false");
+        properties.put("hibernate.use_sql_comments", "false");
+        properties.putAll(overrides);
+        return Persistence.createEntityManagerFactory("jpaShop", properties);
+    }
+
+    public static Member newMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("city", "street", "10000"));
+        return member;
+    }
+
+    public static Book newBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(1_000_000);
+        book.setAuthor("author");
+        book.setIsbn("isbn");
+        return book;
+    }
+
+    /**
+     * Order + OrderItem + Delivery 그래프를 만든다. Delivery 와 OrderItem 은 Order 에서 cascade 된다.
+     */
+    public static Order newOrder(Member member, Item... items) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setDeliveryStatus(DeliveryStatus.READY);
+
+        Order order = new Order();
+        order.setMember(member);
+        order.setDelivery(delivery);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(OrderStatus.ORDER);
+
+        for (Item item : items) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setItem(item);
+            orderItem.setOrderPrice(item.getPrice());
+            orderItem.setCount(1);
+            order.addOrderItem(orderItem);
+        }
+        return order;
+    }
+
+    public static void inTransaction(EntityManagerFactory emf, Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            work.accept(em);
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+}
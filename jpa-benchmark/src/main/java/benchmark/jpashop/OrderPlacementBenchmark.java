@@ -0,0 +1,119 @@
+package benchmark.jpashop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.order.OrderPlacementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * threads 개 스레드가 인기 상품 4 개 중 하나를 동시에 주문할 때의 처리량(orders/sec).
+ * <p>
+ * 반복(iteration)이 끝날 때마다 충돌률을 출력하고, 줄어든 재고와 주문 수량의 합이 다르면(갱신 손실) 실패한다.
+ * 커넥션 풀은 10 개이므로 스레드가 더 많으면 나머지는 커넥션을 기다린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPlacementBenchmark {
+
+    private static final int HOT_ITEMS = 4;
+    private static final int INITIAL_STOCK = 100_000_000;
+    private static final int ORDERS_PER_INVOCATION = 256;
+
+    @Param({"1", "4", "16", "64"})
+    private int threads;
+
+    private EntityManagerFactory emf;
+    private ExecutorService executor;
+    private OrderPlacementService service;
+    private Long memberId;
+    private List<Long> itemIds;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        executor = Executors.newFixedThreadPool(threads);
+        service = new OrderPlacementService(emf);
+
+        itemIds = new ArrayList<>();
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            memberId = member.getId();
+            for (int i = 0; i < HOT_ITEMS; i++) {
+                Book book = JpaShopFixture.newBook("hot" + i, 10000);
+                book.setStockQuantity(INITIAL_STOCK);
+                em.persist(book);
+                itemIds.add(book.getId());
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyNoLostUpdates() {
+        System.out.println(" " + service.getStats());
+        service.resetStats();
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            long stock = em.createQuery("select sum(i.stockQuantity) from Item i", Long.class)
+                .getSingleResult();
+            Long ordered = em.createQuery("select sum(oi.count) from OrderItem oi", Long.class)
+                .getSingleResult();
+            long sold = (long) HOT_ITEMS * INITIAL_STOCK - stock;
+            if (ordered == null ? sold != 0 : sold != ordered) {
+                throw new IllegalStateException("lost update: sold " + sold + " but ordered " + ordered);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_INVOCATION)
+    public void placeOrders() throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int orders = ORDERS_PER_INVOCATION / threads;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < orders; i++) {
+                    Long itemId = itemIds.get(ThreadLocalRandom.current().nextInt(HOT_ITEMS));
+                    service.placeOrder(memberId, Collections.singletonMap(itemId, 1));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+}
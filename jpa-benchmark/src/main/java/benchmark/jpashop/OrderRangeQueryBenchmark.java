@@ -0,0 +1,176 @@
+package benchmark.jpashop;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.archive.ArchiveResult;
+import jpabook.jpashop.archive.OrderArchiver;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.query.OrderRangeQueries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 최근 24 개월에 고르게 흩어진 주문(주문마다 주문상품 1 건)에서 기간 조회 시간(ms/op).
+ * 주문 10% 는 CANCEL 이다.
+ * <ul>
+ *   <li>unindexed: ORDERS 의 orderDate 인덱스를 지운다. (이전 스키마)</li>
+ *   <li>indexed: orderDate, (status, orderDate) 인덱스</li>
+ *   <li>archived: 인덱스 + 최근 3 개월만 ORDERS 에 남기고 나머지는 ORDERS_ARCHIVE, ORDER_ITEM_ARCHIVE 로 옮긴다.</li>
+ * </ul>
+ * {@link #findOldOrderById()} 는 1 년 전 주문을 id 로 찾아서 주문상품까지 읽는다. archived 에서는 보관 테이블에서 읽는다.
+ * 주문을 네이티브 SQL 로 바로 넣어도 1,000 만 건은 힙 4GB 이상이 필요하다. {@code -p orderCount=10000000 -jvmArgs -Xmx8g}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class OrderRangeQueryBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final Duration HISTORY = Duration.ofDays(730);
+    private static final int INSERT_CHUNK = 250_000;
+
+    @Param({"100000", "1000000", "2000000"})
+    private int orderCount;
+
+    @Param({"unindexed", "indexed", "archived"})
+    private String layout;
+
+    private EntityManagerFactory emf;
+    private long oldOrderId;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        // 주문을 넣는 트랜잭션이 커넥션을 오래 잡고 있다.
+        overrides.put("hibernate.hikari.leakDetectionThreshold", "0");
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        long[] ids = new long[2];
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            Book book = JpaShopFixture.newBook("book", 10000);
+            em.persist(book);
+            ids[0] = member.getId();
+            ids[1] = book.getId();
+        });
+
+        long step = HISTORY.getSeconds() / orderCount;
+        // 주문 X 의 orderDate 는 NOW - X * step 이다.
+        oldOrderId = Duration.ofDays(365).getSeconds() / step;
+        // 한 트랜잭션에 모두 넣으면 H2 의 undo 로그가 커서 200 만 건부터 힙이 모자란다.
+        for (long first = 1; first <= orderCount; first += INSERT_CHUNK) {
+            long last = Math.min(first + INSERT_CHUNK - 1, orderCount);
+            long from = first;
+            JpaShopFixture.inTransaction(emf, em -> {
+                em.createNativeQuery("insert into ORDERS (ORDER_ID, MEMBER_ID, orderDate, status, version)"
+                        + " select X, ?1, dateadd('SECOND', -X * ?2, ?3),"
+                        + " case when mod(X, 10) = 0 then 'CANCEL' else 'ORDER' end, 0"
+                        + " from system_range(?4, ?5)")
+                    .setParameter(1, ids[0])
+                    .setParameter(2, step)
+                    .setParameter(3, NOW)
+                    .setParameter(4, from)
+                    .setParameter(5, last)
+                    .executeUpdate();
+                em.createNativeQuery("insert into OrderItem (ORDER_ITEM_ID, ORDER_ID, ITEM_ID, orderPrice, count)"
+                        + " select X, X, ?1, 10000, 1 from system_range(?2, ?3)")
+                    .setParameter(1, ids[1])
+                    .setParameter(2, from)
+                    .setParameter(3, last)
+                    .executeUpdate();
+            });
+        }
+
+        // H2 는 같은 파라미터로 다시 실행한 쿼리에 테이블이 바뀌지 않았으면 이전 결과를 돌려준다.
+        JpaShopFixture.inTransaction(emf, em ->
+            em.createNativeQuery("set OPTIMIZE_REUSE_RESULTS false").executeUpdate());
+
+        if (layout.equals("unindexed")) {
+            JpaShopFixture.inTransaction(emf, em -> {
+                em.createNativeQuery("drop index IDX_ORDERS_ORDER_DATE").executeUpdate();
+                em.createNativeQuery("drop index IDX_ORDERS_STATUS_ORDER_DATE").executeUpdate();
+            });
+        } else if (layout.equals("archived")) {
+            long start = System.nanoTime();
+            long archived = 0;
+            try (OrderArchiver archiver = new OrderArchiver(emf, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), 3)) {
+                for (ArchiveResult result : archiver.archiveClosedMonths()) {
+                    archived += result.getArchivedOrders();
+                }
+            }
+            System.out.printf("%n%d orders archived in %d ms%n", archived,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public Object last7Days() {
+        return query(queries -> queries.findOrders(NOW.minusDays(7), NOW, null, 100));
+    }
+
+    @Benchmark
+    public Object cancelledLast30Days() {
+        return query(queries -> queries.findOrders(NOW.minusDays(30), NOW, OrderStatus.CANCEL, 100));
+    }
+
+    @Benchmark
+    public Object statusCountsLast30Days() {
+        return query(queries -> queries.countByStatus(NOW.minusDays(30), NOW));
+    }
+
+    // 6 ~ 12 개월 전: archived 에서는 ORDERS_ARCHIVE 를 읽는다.
+    @Benchmark
+    public Object statusCountsLastYear() {
+        return query(queries -> queries.countByStatus(NOW.minusMonths(12), NOW.minusMonths(6)));
+    }
+
+    @Benchmark
+    public int findOldOrderById() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Order.class, oldOrderId).getOrderItems().size();
+        } finally {
+            em.close();
+        }
+    }
+
+    private Object query(Function<OrderRangeQueries, Object> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(new OrderRangeQueries(em));
+        } finally {
+            em.close();
+        }
+    }
+
+}
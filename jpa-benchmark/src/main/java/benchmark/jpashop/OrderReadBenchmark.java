@@ -0,0 +1,93 @@
+package benchmark.jpashop;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 주문 목록을 주문상품, 상품까지 읽는 경로. 지연 로딩(N+1)과 fetch join 을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    @Param({"100"})
+    private int orderCount;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+
+            Book[] books = new Book[10];
+            for (int i = 0; i < books.length; i++) {
+                books[i] = JpaShopFixture.newBook("book" + i, 10000 + i);
+                em.persist(books[i]);
+            }
+
+            for (int i = 0; i < orderCount; i++) {
+                em.persist(JpaShopFixture.newOrder(member,
+                    books[i % 10], books[(i + 1) % 10], books[(i + 2) % 10]));
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public void loadOrdersLazily(Blackhole bh) {
+        read(bh, "select o from Order o");
+    }
+
+    @Benchmark
+    public void loadOrdersWithFetchJoin(Blackhole bh) {
+        read(bh, "select distinct o from Order o"
+            + " join fetch o.orderItems oi"
+            + " join fetch oi.item");
+    }
+
+    private void read(Blackhole bh, String jpql) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Order> orders = em.createQuery(jpql, Order.class).getResultList();
+            for (Order order : orders) {
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    bh.consume(orderItem.getItem().getName());
+                }
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+}
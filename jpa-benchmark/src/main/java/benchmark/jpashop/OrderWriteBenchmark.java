@@ -0,0 +1,69 @@
+package benchmark.jpashop;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 주문 한 건(Order + OrderItem 3개 + Delivery)을 한 트랜잭션으로 저장하는 쓰기 경로.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderWriteBenchmark {
+
+    private EntityManagerFactory emf;
+    private Member member;
+    private Book[] books;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        member = JpaShopFixture.newMember("member");
+        books = new Book[]{
+            JpaShopFixture.newBook("book1", 10000),
+            JpaShopFixture.newBook("book2", 20000),
+            JpaShopFixture.newBook("book3", 30000)};
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            em.persist(member);
+            for (Book book : books) {
+                em.persist(book);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public Long persistOrderGraph() {
+        Long[] orderId = new Long[1];
+        JpaShopFixture.inTransaction(emf, em -> {
+            // member, book 은 준영속 상태지만 식별자가 있으므로 추가 조회 없이 FK 로만 사용된다.
+            Order order = JpaShopFixture.newOrder(member, books);
+            em.persist(order);
+            orderId[0] = order.getId();
+        });
+        return orderId[0];
+    }
+
+}
@@ -0,0 +1,88 @@
+package benchmark.jpashop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.loader.LoadReport;
+import jpabook.jpashop.loader.PartitionedLoader;
+import jpabook.jpashop.loader.Partitions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 워커 수에 따른 주문 적재 처리량(orders/sec). 주문은 회원 기준으로 파티션을 나눈다.
+ * parallelism=1 이 BulkOrderIngester 와 같은 단일 스레드 경로다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelLoadBenchmark {
+
+    private static final int ORDER_COUNT = 8_000;
+    private static final int MEMBER_COUNT = 64;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private EntityManagerFactory emf;
+    private List<Member> members;
+    private Book book;
+    private List<Integer> records;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+
+        members = new ArrayList<>(MEMBER_COUNT);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            members.add(JpaShopFixture.newMember("member" + i));
+        }
+        book = JpaShopFixture.newBook("book", 10000);
+        JpaShopFixture.inTransaction(emf, em -> {
+            members.forEach(em::persist);
+            em.persist(book);
+        });
+
+        // 레코드는 주문할 회원의 번호
+        records = new ArrayList<>(ORDER_COUNT);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            records.add(i % MEMBER_COUNT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_COUNT)
+    public LoadReport load() {
+        PartitionedLoader<Integer> loader = new PartitionedLoader<>(emf,
+            (em, memberIndex) -> em.persist(JpaShopFixture.newOrder(members.get(memberIndex), book, book)),
+            parallelism);
+        LoadReport report = loader.load(Partitions.byKey(records, r -> r, parallelism));
+        if (!report.isSuccessful()) {
+            throw new IllegalStateException(report.toString(), report.getFailures().get(0).getCause());
+        }
+        return report;
+    }
+
+}
@@ -0,0 +1,120 @@
+package benchmark.jpashop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.query.OrderQueries;
+import jpabook.jpashop.query.ReadOnly;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 기간 내 주문 2,000 건을 주문상품, 상품과 함께 읽는 리포트 쿼리의 처리량(orders/sec)과 주문당 메모리.
+ * default 는 기존 방식, read-only-query 는 쿼리 힌트, read-only-em 은 EntityManager 전체를 읽기 전용으로 쓴다.
+ * 주문당 영속성 컨텍스트가 붙잡고 있는 메모리는 Setup 에서 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyQueryBenchmark {
+
+    private static final int ORDER_COUNT = 2_000;
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusMonths(1);
+
+    @Param({"default", "read-only-query", "read-only-em"})
+    private String mode;
+
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() {
+        emf = JpaShopFixture.createEntityManagerFactory();
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Book book = JpaShopFixture.newBook("book" + i, 10000 + i);
+                em.persist(book);
+                books.add(book);
+            }
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                Order order = JpaShopFixture.newOrder(member, books.get(i % 100), books.get((i + 1) % 100));
+                order.setOrderDate(FROM.plusMinutes(i));
+                em.persist(order);
+            }
+        });
+        printRetainedBytesPerOrder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDER_COUNT)
+    public List<Order> report() {
+        EntityManager em = createEntityManager();
+        try {
+            return queries(em).findOrdersWithItemsBetween(FROM, TO);
+        } finally {
+            em.close();
+        }
+    }
+
+    private EntityManager createEntityManager() {
+        return mode.equals("read-only-em") ? ReadOnly.entityManager(emf) : emf.createEntityManager();
+    }
+
+    private OrderQueries queries(EntityManager em) {
+        OrderQueries queries = new OrderQueries(em);
+        return mode.equals("read-only-query") ? queries.readOnly() : queries;
+    }
+
+    /**
+     * 결과 목록을 붙잡은 채로 em.clear() 전후의 힙을 비교한다. 차이가 영속성 컨텍스트(엔트리, 스냅샷)가
+     * 추가로 붙잡고 있던 메모리다.
+     */
+    private void printRetainedBytesPerOrder() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        EntityManager em = createEntityManager();
+        try {
+            List<Order> orders = queries(em).findOrdersWithItemsBetween(FROM, TO);
+            System.gc();
+            long managed = memory.getHeapMemoryUsage().getUsed();
+
+            em.clear();
+            System.gc();
+            long detached = memory.getHeapMemoryUsage().getUsed();
+            System.out.printf(" [%s] persistence context bytes per order: %,d%n", mode,
+                (managed - detached) / orders.size());
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package benchmark.jpashop;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Book;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.sql.InstrumentedConnectionProvider;
+import jpabook.jpashop.sql.SqlCapture;
+import jpabook.jpashop.sql.SqlStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 주문 20 건을 읽고 주문상품을 지연 로딩하는(N+1, SQL 21 번) 트랜잭션의 처리량(tx/sec).
+ * off 는 HikariCP 그대로, on 은 InstrumentedConnectionProvider 로 SQL 을 계측한다.
+ * on 은 TearDown 에서 쿼리별 통계, N+1 의심 SQL, 히스토그램을 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlInstrumentationBenchmark {
+
+    private static final int ORDER_COUNT = 1_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"off", "on"})
+    private String instrumentation;
+
+    private EntityManagerFactory emf;
+    private int page;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        if (instrumentation.equals("on")) {
+            InstrumentedConnectionProvider.enable(overrides);
+        }
+        // SqlStatistics 가 SQL 을 만든 쿼리를 구분하려면 주석이 필요하다.
+        overrides.put("hibernate.use_sql_comments", "true");
+        emf = JpaShopFixture.createEntityManagerFactory(overrides);
+
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                Book book = JpaShopFixture.newBook("book" + i, 10000 + i);
+                em.persist(book);
+                books.add(book);
+            }
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                em.persist(JpaShopFixture.newOrder(member, books.get(i % 100), books.get((i + 1) % 100)));
+            }
+        });
+
+        if (instrumentation.equals("on")) {
+            // 주문 1 + 주문상품 20 번: 3 번을 넘으므로 AssertionError
+            try {
+                SqlCapture.expectAtMost(3, () -> readOrders(0));
+            } catch (AssertionError e) {
+                System.out.println(" " + e.getMessage().split("\n")[0]);
+            }
+            SqlStatistics.of(emf).reset();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (instrumentation.equals("on")) {
+            SqlStatistics statistics = SqlStatistics.of(emf);
+            statistics.getQueries().forEach(query -> System.out.println(" " + query));
+            statistics.getRepeatedStatements().forEach(repeated -> System.out.println(" " + repeated));
+            StringWriter histogram = new StringWriter();
+            statistics.writeHistogram(histogram);
+            System.out.print(histogram);
+        }
+        emf.close();
+    }
+
+    @Benchmark
+    public int readOrdersWithItems() {
+        page = (page + 1) % (ORDER_COUNT / PAGE_SIZE);
+        return readOrders(page);
+    }
+
+    private int readOrders(int page) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Order> orders = em.createQuery("select o from Order o order by o.id", Order.class)
+                .setFirstResult(page * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+            int items = 0;
+            for (Order order : orders) {
+                items += order.getOrderItems().size();
+            }
+            em.getTransaction().commit();
+            return items;
+        } finally {
+            em.close();
+        }
+    }
+
+}
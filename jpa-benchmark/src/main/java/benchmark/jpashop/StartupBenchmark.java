@@ -0,0 +1,59 @@
+package benchmark.jpashop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 새 JVM 에서 jpaShop EntityManagerFactory 를 처음 만드는 데 걸리는 시간(콜드 스타트).
+ * <ul>
+ *   <li>scan: 기존 방식. 클래스패스를 스캔해서 엔티티를 찾는다.</li>
+ *   <li>listed: persistence.xml 에 나열한 엔티티만 읽는다.</li>
+ *   <li>listed-no-ddl: 스키마가 이미 있는 배치 작업처럼 hbm2ddl 도 끈다.</li>
+ * </ul>
+ * 빌드 시 바이트코드 향상의 효과는 jpashop 을 -Penhance 로 설치한 뒤 다시 실행해서 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"scan", "listed", "listed-no-ddl"})
+    private String mode;
+
+    private Map<String, Object> overrides;
+
+    @Setup
+    public void setUp() {
+        overrides = new HashMap<>();
+        if (mode.equals("scan")) {
+            overrides.put("hibernate.archive.autodetection", "class,hbm");
+        }
+        if (mode.equals("listed-no-ddl")) {
+            overrides.put("hibernate.hbm2ddl.auto", "none");
+        }
+    }
+
+    @Benchmark
+    public EntityManagerFactory createEntityManagerFactory() {
+        EntityManagerFactory emf = JpaShopFixture.createEntityManagerFactory(overrides);
+        emf.close();
+        return emf;
+    }
+
+}
@@ -0,0 +1,63 @@
+package benchmark.jpql;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * hello-jpql 의 hello 영속성 유닛을 임베디드 인메모리 H2 로 띄운다.
+ */
+public final class HelloJpqlFixture {
+
+    private static final AtomicInteger DATABASE_SEQUENCE = new AtomicInteger();
+
+    private HelloJpqlFixture() {
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory() {
+        return createEntityManagerFactory(new HashMap<>());
+    }
+
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url",
+            "jdbc:h2:mem:jpql" + DATABASE_SEQUENCE.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.show_sql", "false");
+        properties.put("hibernate.format_sql", "false");
+        properties.put("hibernate.use_sql_comments", "false");
+        properties.putAll(overrides);
+        return Persistence.createEntityManagerFactory("hello", properties);
+    }
+
+    /**
+     * 엔티티를 거치지 않고 H2 의 SYSTEM_RANGE 로 회원을 한 번에 넣는다. 나이는 0 ~ 99 로 반복된다.
+     */
+    public static void insertMembers(EntityManagerFactory emf, int count) {
+        inTransaction(emf, em -> em.createNativeQuery(
+                "insert into Member (id, username, age, type)"
+                    + " select x, concat('member', x), mod(x, 100), 'USER'"
+                    + " from system_range(1, " + count + ")")
+            .executeUpdate());
+    }
+
+    public static void inTransaction(EntityManagerFactory emf, Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            work.accept(em);
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+}
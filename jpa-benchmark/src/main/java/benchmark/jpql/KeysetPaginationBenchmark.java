@@ -0,0 +1,101 @@
+package benchmark.jpql;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpql.Member;
+import jpql.paging.KeysetCursor;
+import jpql.paging.KeysetPage;
+import jpql.paging.KeysetQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 100만 건 Member 를 age desc, id desc 로 100 건씩 페이징할 때 페이지 깊이에 따른 지연 시간.
+ * OFFSET 은 앞 페이지를 모두 건너뛰어야 하고, 키셋은 인덱스에서 바로 시작 위치를 찾는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class KeysetPaginationBenchmark {
+
+    private static final int MEMBER_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1", "100", "1000", "5000", "10000"})
+    private int page;
+
+    private EntityManagerFactory emf;
+    private String cursor;
+
+    @Setup
+    public void setUp() {
+        emf = HelloJpqlFixture.createEntityManagerFactory();
+        HelloJpqlFixture.insertMembers(emf, MEMBER_COUNT);
+        // H2 는 같은 파라미터로 다시 실행한 쿼리에 테이블이 바뀌지 않았으면 이전 결과를 돌려준다.
+        HelloJpqlFixture.inTransaction(emf, em ->
+            em.createNativeQuery("set OPTIMIZE_REUSE_RESULTS false").executeUpdate());
+
+        // 이전 페이지의 마지막 행으로 커서를 만든다.
+        if (page > 1) {
+            EntityManager em = emf.createEntityManager();
+            Object[] last = (Object[]) em.createQuery(
+                    "select m.age, m.id from Member m order by m.age desc, m.id desc")
+                .setFirstResult((page - 1) * PAGE_SIZE - 1)
+                .setMaxResults(1)
+                .getSingleResult();
+            cursor = new KeysetCursor(last[0], last[1]).encode();
+            em.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        emf.close();
+    }
+
+    @Benchmark
+    public List<Member> offset() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("select m from Member m order by m.age desc, m.id desc",
+                    Member.class)
+                .setFirstResult((page - 1) * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public KeysetPage<Member> keyset() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return KeysetQuery.of(
+                    em.createQuery("select m from Member m order by m.age desc, m.id desc", Member.class),
+                    em.createQuery("select m from Member m"
+                        + " where m.age <= :lastKey and (m.age < :lastKey or m.id < :lastId)"
+                        + " order by m.age desc, m.id desc", Member.class))
+                .keys(Member::getAge, Member::getId)
+                .fetch(cursor, PAGE_SIZE);
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package benchmark.jpql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpql.Member;
+import jpql.MemberDTO;
+import jpql.projection.ProjectionQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Member 10,000 건을 (username, age) DTO 로 읽는 처리량(rows/sec)과 행당 할당량.
+ * select new, ProjectionQuery(클래스, 레코드, 인터페이스), 엔티티를 읽어서 DTO 로 옮기는 방식을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final int MEMBER_COUNT = 10_000;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+
+    @Setup
+    public void setUp() {
+        emf = HelloJpqlFixture.createEntityManagerFactory();
+        HelloJpqlFixture.insertMembers(emf, MEMBER_COUNT);
+        em = emf.createEntityManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT)
+    public List<MemberDTO> selectNew() {
+        return em.createQuery("select new jpql.MemberDTO(m.username, m.age) from Member m", MemberDTO.class)
+            .getResultList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT)
+    public List<MemberDTO> projectionClass() {
+        return ProjectionQuery.of(em, "select m.username, m.age from Member m", MemberDTO.class)
+            .getResultList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT)
+    public List<MemberRow> projectionRecord() {
+        return ProjectionQuery.of(em, "select m.username as username, m.age as age from Member m",
+                MemberRow.class)
+            .getResultList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT)
+    public List<MemberView> projectionInterface() {
+        return ProjectionQuery.of(em, "select m.username as username, m.age as age from Member m",
+                MemberView.class)
+            .getResultList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBER_COUNT)
+    public List<MemberDTO> entityToDto() {
+        List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+        List<MemberDTO> result = new ArrayList<>(members.size());
+        for (Member member : members) {
+            result.add(new MemberDTO(member.getUsername(), member.getAge()));
+        }
+        em.clear();
+        return result;
+    }
+
+    public record MemberRow(String username, int age) {
+    }
+
+    public interface MemberView {
+
+        String getUsername();
+
+        int getAge();
+    }
+
+}
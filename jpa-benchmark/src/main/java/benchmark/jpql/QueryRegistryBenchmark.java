@@ -0,0 +1,78 @@
+package benchmark.jpql;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import jpql.Member;
+import jpql.query.MemberQueries;
+import jpql.query.QueryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 플랜 캐시가 데워진 뒤 username 으로 Member 한 건을 찾는 처리량과 쿼리당 할당량.
+ * Criteria 쿼리를 매번 만드는 방식, 문자열 JPQL, QueryRegistry 의 이름 있는 쿼리를 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryRegistryBenchmark {
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private QueryRegistry registry;
+
+    @Setup
+    public void setUp() {
+        emf = HelloJpqlFixture.createEntityManagerFactory();
+        HelloJpqlFixture.insertMembers(emf, 1_000);
+        registry = QueryRegistry.compile(emf, MemberQueries::register);
+        em = emf.createEntityManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public List<Member> criteriaRebuilt() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = cb.createQuery(Member.class);
+        Root<Member> m = query.from(Member.class);
+        query.select(m).where(cb.equal(m.get("username"), cb.parameter(String.class, "username")));
+        return em.createQuery(query).setParameter("username", "member500").getResultList();
+    }
+
+    @Benchmark
+    public List<Member> adHocJpql() {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+            .setParameter("username", "member500")
+            .getResultList();
+    }
+
+    @Benchmark
+    public List<Member> registered() {
+        return registry.createQuery(em, MemberQueries.FIND_BY_USERNAME_CRITERIA, Member.class)
+            .setParameter("username", "member500")
+            .getResultList();
+    }
+
+}
@@ -0,0 +1,107 @@
+package benchmark.jpql;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import jpql.Member;
+import jpql.MemberDTO;
+import jpql.MemberType;
+import jpql.query.MemberQueries;
+import jpql.query.QueryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EntityManagerFactory 를 새로 만든 직후 JpaMain 의 쿼리 7 개를 처음 한 번씩 실행하는 데 걸리는 시간.
+ * 문자열/Criteria 쿼리를 그때그때 만드는 방식과 QueryRegistry 로 기동할 때 번역해 둔 방식을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class QueryWarmUpBenchmark {
+
+    // 같은 EntityManagerFactory 를 쓰면 플랜 캐시를 공유하므로 따로 만든다.
+    private EntityManagerFactory adHocEmf;
+    private EntityManagerFactory registeredEmf;
+    private QueryRegistry registry;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        adHocEmf = HelloJpqlFixture.createEntityManagerFactory();
+        HelloJpqlFixture.insertMembers(adHocEmf, 100);
+
+        registeredEmf = HelloJpqlFixture.createEntityManagerFactory();
+        HelloJpqlFixture.insertMembers(registeredEmf, 100);
+        registry = QueryRegistry.compile(registeredEmf, MemberQueries::register);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        adHocEmf.close();
+        registeredEmf.close();
+    }
+
+    @Benchmark
+    public void adHocFirstRequests(Blackhole blackhole) {
+        EntityManager em = adHocEmf.createEntityManager();
+        try {
+            blackhole.consume(em.createQuery("select m from Member m", Member.class).getResultList());
+            blackhole.consume(em.createQuery("select m from Member m order by m.age desc", Member.class)
+                .getResultList());
+            blackhole.consume(em.createQuery("select m.username, m.age from Member m").getResultList());
+            blackhole.consume(em.createQuery("select new jpql.MemberDTO(m.username, m.age) from Member m",
+                MemberDTO.class).getResultList());
+            blackhole.consume(em.createQuery("select m from Member m where m.type = :userType", Member.class)
+                .setParameter("userType", MemberType.ADMIN)
+                .getResultList());
+            blackhole.consume(em.createQuery("select t.members from Team t").getResultList());
+
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Member> query = cb.createQuery(Member.class);
+            Root<Member> m = query.from(Member.class);
+            query.select(m).where(cb.equal(m.get("username"), cb.parameter(String.class, "username")));
+            blackhole.consume(em.createQuery(query).setParameter("username", "member1").getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void registeredFirstRequests(Blackhole blackhole) {
+        EntityManager em = registeredEmf.createEntityManager();
+        try {
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_ALL, Member.class).getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_ALL_ORDER_BY_AGE, Member.class)
+                .getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_USERNAME_AND_AGE).getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_DTO, MemberDTO.class).getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_BY_TYPE, Member.class)
+                .setParameter("userType", MemberType.ADMIN)
+                .getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_TEAM_MEMBERS).getResultList());
+            blackhole.consume(registry.createQuery(em, MemberQueries.FIND_BY_USERNAME_CRITERIA, Member.class)
+                .setParameter("username", "member1")
+                .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package benchmark.jpql;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpql.Member;
+import jpql.readmodel.MemberReadModel;
+import jpql.readmodel.MemberView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 회원 + 팀 이름 단건 조회 지연 시간 분포(p99 는 결과의 p0.99). id, 사용자 이름으로 JPA 와 MemberReadModel 을 비교한다.
+ * 준비 단계에서 MemberReadModel 의 회원당 바이트와, 같은 회원을 엔티티로 읽었을 때의 회원당 바이트를 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ReadModelBenchmark {
+
+    private static final int TEAM_COUNT = 100;
+    private static final int KEY_COUNT = 1 << 16;
+    // 엔티티 메모리는 이만큼 읽어서 회원당으로 나눈다.
+    private static final int ENTITY_SAMPLE = 100_000;
+
+    @Param({"100000", "1000000"})
+    private int members;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private MemberReadModel model;
+    private final MemberView view = new MemberView();
+    private long[] ids;
+    private String[] usernames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("hibernate.hikari.leakDetectionThreshold", "0");
+        emf = HelloJpqlFixture.createEntityManagerFactory(overrides);
+        HelloJpqlFixture.inTransaction(emf, em -> {
+            em.createNativeQuery("set OPTIMIZE_REUSE_RESULTS false").executeUpdate();
+            em.createNativeQuery("insert into Team (id, name)"
+                    + " select x, concat('team', x) from system_range(1, " + TEAM_COUNT + ")")
+                .executeUpdate();
+            em.createNativeQuery("insert into Member (id, username, age, type, TEAM_ID)"
+                    + " select x, concat('member', x), mod(x, 100), 'USER', mod(x, " + TEAM_COUNT + ") + 1"
+                    + " from system_range(1, " + members + ")")
+                .executeUpdate();
+            // JPA 쪽도 인덱스로 찾도록
+            em.createNativeQuery("create index IDX_MEMBER_USERNAME on Member (username)").executeUpdate();
+        });
+
+        long before = usedHeap();
+        model = MemberReadModel.attach(emf);
+        long modelBytes = usedHeap() - before;
+
+        EntityManager loading = emf.createEntityManager();
+        before = usedHeap();
+        List<Member> entities = loading.createQuery(
+                "select m from Member m join fetch m.team where m.id <= :max", Member.class)
+            .setParameter("max", (long) ENTITY_SAMPLE)
+            .getResultList();
+        long entityBytes = usedHeap() - before;
+        int loaded = entities.size();
+        loading.close();
+
+        System.out.printf("%n[read model] members=%d measured=%.1f B/member estimate=%.1f B/member"
+                + " entities=%.1f B/member%n",
+            model.size(), (double) modelBytes / members, (double) model.estimateBytes() / members,
+            (double) entityBytes / loaded);
+
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[KEY_COUNT];
+        usernames = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            ids[i] = random.nextInt(members) + 1;
+            usernames[i] = "member" + ids[i];
+        }
+        em = emf.createEntityManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    @Benchmark
+    public String jpaById() {
+        Member member = em.find(Member.class, ids[next++ & (KEY_COUNT - 1)]);
+        String teamName = member.getTeam().getName();
+        em.clear();
+        return teamName;
+    }
+
+    @Benchmark
+    public String jpaByUsername() {
+        Member member = em.createNamedQuery("Member.findByUsername", Member.class)
+            .setParameter("username", usernames[next++ & (KEY_COUNT - 1)])
+            .getSingleResult();
+        String teamName = member.getTeam().getName();
+        em.clear();
+        return teamName;
+    }
+
+    @Benchmark
+    public String readModelById() {
+        model.findById(ids[next++ & (KEY_COUNT - 1)], view);
+        return view.getTeamName();
+    }
+
+    @Benchmark
+    public String readModelByUsername() {
+        model.findByUsername(usernames[next++ & (KEY_COUNT - 1)], view);
+        return view.getTeamName();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,134 @@
+package benchmark.jpql;
+
+import benchmark.jpashop.JpaShopFixture;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpql.stream.QueryStreamer;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 500만 건 Member(hello-jpql) 또는 Order(jpashop) 를 작은 힙(-Xmx128m)에서 끝까지 읽는다.
+ * getResultList() 로는 OutOfMemoryError 가 나는 크기다.
+ * DB 가 같은 힙을 쓰지 않도록 인메모리 대신 임시 디렉터리의 파일 DB 를 사용한다.
+ * 스트리밍하는 동안 영속성 컨텍스트가 clearInterval 보다 커지면 실패한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx128m")
+public class StreamingExportBenchmark {
+
+    @Param({"5000000"})
+    private int rowCount;
+
+    @Param({"member", "order"})
+    private String entity;
+
+    private Path databaseDirectory;
+    private EntityManagerFactory emf;
+
+    @Setup
+    public void setUp() throws IOException {
+        databaseDirectory = Files.createTempDirectory("jpql-stream");
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("javax.persistence.jdbc.url",
+            "jdbc:h2:file:" + databaseDirectory.resolve("export").toAbsolutePath());
+        overrides.put("hibernate.hikari.leakDetectionThreshold", "0");
+
+        if (entity.equals("member")) {
+            emf = HelloJpqlFixture.createEntityManagerFactory(overrides);
+            HelloJpqlFixture.insertMembers(emf, rowCount);
+        } else {
+            emf = JpaShopFixture.createEntityManagerFactory(overrides);
+            insertOrders(emf, rowCount);
+        }
+    }
+
+    // 회원 한 명의 주문을 네이티브 SQL 로 넣는다.
+    private static void insertOrders(EntityManagerFactory emf, int count) {
+        JpaShopFixture.inTransaction(emf, em -> {
+            Member member = JpaShopFixture.newMember("member");
+            em.persist(member);
+            em.flush();
+            em.createNativeQuery("insert into ORDERS (ORDER_ID, MEMBER_ID, orderDate, status, version)"
+                    + " select X, ?1, dateadd('SECOND', -X, current_timestamp), 'ORDER', 0"
+                    + " from system_range(1, ?2)")
+                .setParameter(1, member.getId())
+                .setParameter(2, count)
+                .executeUpdate();
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        emf.close();
+        try (Stream<Path> paths = Files.walk(databaseDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public long export() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            QueryStreamer streamer = new QueryStreamer(em).readOnly();
+            long count = entity.equals("member")
+                ? count(em, streamer.stream("select m from jpql.Member m", jpql.Member.class))
+                : count(em, streamer.stream("select o from Order o", Order.class));
+            if (count != rowCount) {
+                throw new IllegalStateException("streamed " + count + " of " + rowCount);
+            }
+            return count;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long count(EntityManager em, Stream<?> rows) {
+        Session session = em.unwrap(Session.class);
+        long[] count = new long[1];
+        try (Stream<?> stream = rows) {
+            stream.forEach(row -> {
+                if (++count[0] % QueryStreamer.DEFAULT_CLEAR_INTERVAL == 0
+                    && session.getStatistics().getEntityCount() > QueryStreamer.DEFAULT_CLEAR_INTERVAL) {
+                    throw new IllegalStateException(session.getStatistics().getEntityCount()
+                        + " entities managed after " + count[0] + " rows");
+                }
+            });
+        }
+        return count[0];
+    }
+
+}
@@ -3,7 +3,9 @@ package helloJpa;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -15,6 +17,10 @@ import lombok.Setter;
 @NoArgsConstructor
 @Entity
 @Table(name = "ADDRESS")
+@SequenceGenerator(
+    name = "ADDRESS_SEQ_GENERATOR",
+    sequenceName = "ADDRESS_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class AddressEntity {
 
     public AddressEntity(Address address) {
@@ -22,7 +28,7 @@ public class AddressEntity {
     }
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ADDRESS_SEQ_GENERATOR")
     private Long id;
 
     private Address address;
@@ -3,18 +3,24 @@ package helloJpa;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 @Entity
+@SequenceGenerator(
+    name = "LOCKER_SEQ_GENERATOR",
+    sequenceName = "LOCKER_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class Locker {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "LOCKER_SEQ_GENERATOR")
     @Column(name = "LOCKER_ID")
     private Long id;
 
@@ -3,19 +3,25 @@ package helloJpa;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 @Entity
+@SequenceGenerator(
+    name = "MEMBER_PRODUCT_SEQ_GENERATOR",
+    sequenceName = "MEMBER_PRODUCT_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public class MemberProduct {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MEMBER_PRODUCT_SEQ_GENERATOR")
     @Column(name = "MEMBER_PRODUCT_ID")
     private Long id;
 
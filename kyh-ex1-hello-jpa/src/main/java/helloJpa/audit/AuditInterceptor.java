@@ -0,0 +1,67 @@
+package helloJpa.audit;
+
+import helloJpa.BaseEntity;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+/**
+ * BaseEntity 의 createdBy, createdDate, lastModifiedBy, lastModifiedDate 를 채운다.
+ * <p>
+ * jpashop 의 AuditInterceptor 를 이 예제에 맞게 줄인 것이다. 사용자는 항상 {@value #SYSTEM} 이고,
+ * 저장하는 엔티티가 적어서 속성 위치를 캐시하지 않는다. 하이버네이트가 넘겨준 상태 배열의 값을 바꾼다.
+ * <ul>
+ *   <li>저장(persist): 비어 있는 created*, 그리고 lastModified*</li>
+ *   <li>flush: 변경 감지에서 실제로 바뀐 엔티티만 lastModified*</li>
+ * </ul>
+ */
+public class AuditInterceptor extends EmptyInterceptor {
+
+    public static final String SYSTEM = "system";
+
+    @Override
+    public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        if (!(entity instanceof BaseEntity)) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        setIfNull(state, propertyNames, "createdBy", SYSTEM);
+        setIfNull(state, propertyNames, "createdDate", now);
+        set(state, propertyNames, "lastModifiedBy", SYSTEM);
+        set(state, propertyNames, "lastModifiedDate", now);
+        return true;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+        String[] propertyNames, Type[] types) {
+        if (!(entity instanceof BaseEntity)) {
+            return false;
+        }
+        set(currentState, propertyNames, "lastModifiedBy", SYSTEM);
+        set(currentState, propertyNames, "lastModifiedDate", LocalDateTime.now());
+        return true;
+    }
+
+    private static void setIfNull(Object[] state, String[] propertyNames, String name, Object value) {
+        int index = indexOf(propertyNames, name);
+        if (state[index] == null) {
+            state[index] = value;
+        }
+    }
+
+    private static void set(Object[] state, String[] propertyNames, String name, Object value) {
+        state[indexOf(propertyNames, name)] = value;
+    }
+
+    private static int indexOf(String[] propertyNames, String name) {
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("audit property not mapped: " + name);
+    }
+
+}
@@ -0,0 +1,31 @@
+package helloJpa.collection;
+
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CollectionDiff {
+
+    private final int inserted;
+    private final int deleted;
+    // 보낸 JDBC batch 수 (현재 행을 읽는 SELECT 1 번은 제외)
+    private final int batches;
+    private final long elapsedNanos;
+
+    CollectionDiff withElapsedNanos(long elapsedNanos) {
+        return new CollectionDiff(inserted, deleted, batches, elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "CollectionDiff{" +
+            "inserted=" + inserted +
+            ", deleted=" + deleted +
+            ", batches=" + batches +
+            ", elapsedMicros=" + TimeUnit.NANOSECONDS.toMicros(elapsedNanos) +
+            '}';
+    }
+
+}
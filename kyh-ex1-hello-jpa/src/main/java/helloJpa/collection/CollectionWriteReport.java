@@ -0,0 +1,159 @@
+package helloJpa.collection;
+
+import helloJpa.Address;
+import helloJpa.AddressEntity;
+import helloJpa.Member;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * 주소 이력 1,000 건, 좋아하는 음식 1,000 건인 회원의 컬렉션을 한 번에 10 건씩 바꿔 가며
+ * 하이버네이트 기본 플러시와 MemberCollectionWriter 의 SQL 수, 시간을 비교한다.
+ * <p>
+ * 인메모리 H2 로 실행한다. 인자: [이력 건수] [한 번에 바꾸는 건수] [반복 횟수]
+ */
+public class CollectionWriteReport {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        run("hibernate", size, changes, rounds, false, false);
+        run("hibernate-batch", size, changes, rounds, true, false);
+        run("diff-writer", size, changes, rounds, false, true);
+    }
+
+    private static void run(String name, int size, int changes, int rounds, boolean jdbcBatch, boolean useWriter) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.show_sql", "false");
+        properties.put("hibernate.format_sql", "false");
+        properties.put("hibernate.use_sql_comments", "false");
+        properties.put("hibernate.generate_statistics", "true");
+        properties.put("hibernate.session.events.log", "false");
+        if (jdbcBatch) {
+            properties.put("hibernate.jdbc.batch_size", "50");
+            properties.put("hibernate.order_inserts", "true");
+            properties.put("hibernate.order_updates", "true");
+        }
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("hello", properties);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        try {
+            Long memberId = createMember(emf, size);
+            List<Address> history = new ArrayList<>();
+            Set<String> foods = new HashSet<>();
+            for (int i = 0; i < size; i++) {
+                history.add(address(i));
+                foods.add(food(i));
+            }
+
+            // 앞의 두 번은 워밍업
+            long statements = 0;
+            long nanos = 0;
+            int next = size;
+            for (int round = -2; round < rounds; round++) {
+                List<Address> removedAddresses = new ArrayList<>(history.subList(0, changes));
+                List<Address> addedAddresses = new ArrayList<>();
+                Set<String> removedFoods = new HashSet<>();
+                Set<String> addedFoods = new HashSet<>();
+                for (int i = 0; i < changes; i++) {
+                    removedFoods.add(food(next - size + i));
+                    addedFoods.add(food(next + i));
+                    addedAddresses.add(address(next + i));
+                }
+                next += changes;
+                history.removeAll(removedAddresses);
+                history.addAll(addedAddresses);
+                foods.removeAll(removedFoods);
+                foods.addAll(addedFoods);
+
+                statistics.clear();
+                long start = System.nanoTime();
+                long writerStatements = 0;
+
+                EntityManager em = emf.createEntityManager();
+                EntityTransaction tx = em.getTransaction();
+                tx.begin();
+                if (useWriter) {
+                    MemberCollectionWriter writer = new MemberCollectionWriter(em);
+                    // 현재 행을 읽는 SELECT 1 번 + batch 수
+                    writerStatements += 1 + writer.updateFavoriteFoods(memberId, foods).getBatches();
+                    writerStatements += 1 + writer.updateAddressHistory(memberId, history).getBatches();
+                } else {
+                    Member member = em.find(Member.class, memberId);
+                    member.getFavoriteFoods().removeAll(removedFoods);
+                    member.getFavoriteFoods().addAll(addedFoods);
+                    member.getAddressHistory().removeIf(entity -> removedAddresses.contains(entity.getAddress()));
+                    for (Address address : addedAddresses) {
+                        member.getAddressHistory().add(new AddressEntity(address));
+                    }
+                }
+                tx.commit();
+                em.close();
+
+                if (round >= 0) {
+                    nanos += System.nanoTime() - start;
+                    // doWork 로 직접 보낸 SQL 은 통계에 잡히지 않으므로 따로 더한다.
+                    statements += statistics.getPrepareStatementCount() + writerStatements;
+                }
+            }
+
+            verify(emf, memberId, history, foods);
+            System.out.printf("%-16s statements/update=%6.1f  micros/update=%8d%n", name,
+                (double) statements / rounds, TimeUnit.NANOSECONDS.toMicros(nanos / rounds));
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static Long createMember(EntityManagerFactory emf, int size) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Member member = new Member();
+        member.setName("member");
+        for (int i = 0; i < size; i++) {
+            member.getFavoriteFoods().add(food(i));
+            member.getAddressHistory().add(new AddressEntity(address(i)));
+        }
+        em.persist(member);
+        em.getTransaction().commit();
+        em.close();
+        return member.getId();
+    }
+
+    private static void verify(EntityManagerFactory emf, Long memberId, List<Address> history, Set<String> foods) {
+        EntityManager em = emf.createEntityManager();
+        Member member = em.find(Member.class, memberId);
+        Set<Address> stored = new HashSet<>();
+        for (AddressEntity entity : member.getAddressHistory()) {
+            stored.add(entity.getAddress());
+        }
+        if (!member.getFavoriteFoods().equals(foods) || member.getAddressHistory().size() != history.size()
+            || !stored.equals(new HashSet<>(history))) {
+            throw new IllegalStateException("collection contents differ from the expected state");
+        }
+        em.close();
+    }
+
+    private static String food(int i) {
+        return "food" + i;
+    }
+
+    private static Address address(int i) {
+        return new Address("city" + i, "street" + i, String.valueOf(10000 + i));
+    }
+
+}
@@ -0,0 +1,217 @@
+package helloJpa.collection;
+
+import helloJpa.Address;
+import helloJpa.AddressEntity;
+import helloJpa.Member;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Member 의 favoriteFoods, addressHistory 를 바뀐 행만 JDBC batch 로 저장한다.
+ * <p>
+ * 하이버네이트에 맡기면 addressHistory(@JoinColumn 단방향 @OneToMany)는 추가한 주소마다
+ * INSERT 후 MEMBER_ID 를 채우는 UPDATE 가 한 번 더 나가고, 지운 주소마다 MEMBER_ID 를 비우는 UPDATE 후 DELETE 가 나간다.
+ * 여기서는 현재 행을 읽어서 목표 상태와 비교한 뒤 지울 행은 DELETE, 추가할 행은 MEMBER_ID 를 포함한 INSERT 만
+ * batchSize 개씩 묶어서 보낸다.
+ * <p>
+ * 호출한 트랜잭션 안에서 실행한다. 쓰기 전에 flush 하고, 쓴 뒤에는 영속성 컨텍스트의 Member 가
+ * 예전 컬렉션을 들고 있으므로 detach 한다. 필요하면 다시 조회한다.
+ */
+public class MemberCollectionWriter {
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    private static final String SELECT_FOODS_SQL = "select FOOD_NAME from FAVORITE_FOOD where MEMBER_ID = ?";
+    private static final String DELETE_FOOD_SQL = "delete from FAVORITE_FOOD where MEMBER_ID = ? and FOOD_NAME = ?";
+    private static final String INSERT_FOOD_SQL = "insert into FAVORITE_FOOD (MEMBER_ID, FOOD_NAME) values (?, ?)";
+
+    private static final String SELECT_ADDRESSES_SQL =
+        "select ID, city, street, zipcode from ADDRESS where MEMBER_ID = ?";
+    private static final String DELETE_ADDRESS_SQL = "delete from ADDRESS where ID = ?";
+    private static final String INSERT_ADDRESS_SQL =
+        "insert into ADDRESS (city, street, zipcode, MEMBER_ID, ID) values (?, ?, ?, ?, ?)";
+
+    private final EntityManager em;
+    private final int batchSize;
+
+    public MemberCollectionWriter(EntityManager em) {
+        this(em, DEFAULT_BATCH_SIZE);
+    }
+
+    public MemberCollectionWriter(EntityManager em, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 회원의 favoriteFoods 를 foods 로 바꾼다.
+     */
+    public CollectionDiff updateFavoriteFoods(Long memberId, Set<String> foods) {
+        long start = System.nanoTime();
+        em.flush();
+
+        CollectionDiff diff = session().doReturningWork(connection -> {
+            Set<String> current = new HashSet<>();
+            try (PreparedStatement select = connection.prepareStatement(SELECT_FOODS_SQL)) {
+                select.setLong(1, memberId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        current.add(rs.getString(1));
+                    }
+                }
+            }
+
+            List<String> removed = new ArrayList<>();
+            for (String food : current) {
+                if (!foods.contains(food)) {
+                    removed.add(food);
+                }
+            }
+            List<String> added = new ArrayList<>();
+            for (String food : foods) {
+                if (!current.contains(food)) {
+                    added.add(food);
+                }
+            }
+
+            int batches = executeBatches(connection, DELETE_FOOD_SQL, removed, (ps, food) -> {
+                ps.setLong(1, memberId);
+                ps.setString(2, food);
+            });
+            batches += executeBatches(connection, INSERT_FOOD_SQL, added, (ps, food) -> {
+                ps.setLong(1, memberId);
+                ps.setString(2, food);
+            });
+            return new CollectionDiff(added.size(), removed.size(), batches, 0);
+        });
+
+        detachMember(memberId);
+        return diff.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * 회원의 addressHistory 를 history 로 바꾼다. 같은 주소가 이미 있으면 그 행을 그대로 둔다.
+     */
+    public CollectionDiff updateAddressHistory(Long memberId, List<Address> history) {
+        long start = System.nanoTime();
+        em.flush();
+
+        // 주소 -> 그 주소인 행의 ID 들
+        Map<Address, List<Long>> current = session().doReturningWork(connection -> {
+            Map<Address, List<Long>> rows = new HashMap<>();
+            try (PreparedStatement select = connection.prepareStatement(SELECT_ADDRESSES_SQL)) {
+                select.setLong(1, memberId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        Address address = new Address(rs.getString(2), rs.getString(3), rs.getString(4));
+                        rows.computeIfAbsent(address, key -> new ArrayList<>()).add(rs.getLong(1));
+                    }
+                }
+            }
+            return rows;
+        });
+
+        List<Address> added = new ArrayList<>();
+        for (Address address : history) {
+            List<Long> ids = current.get(address);
+            if (ids == null || ids.isEmpty()) {
+                added.add(address);
+            } else {
+                ids.remove(ids.size() - 1);
+            }
+        }
+        List<Long> removed = new ArrayList<>();
+        current.values().forEach(removed::addAll);
+
+        // 식별자는 엔티티와 같은 시퀀스(pooled-lo)에서 받는다.
+        List<Object[]> inserts = new ArrayList<>(added.size());
+        for (Address address : added) {
+            inserts.add(new Object[]{address, generateAddressId(address)});
+        }
+
+        int batches = session().doReturningWork(connection -> {
+            int count = executeBatches(connection, DELETE_ADDRESS_SQL, removed, (ps, id) -> ps.setLong(1, id));
+            count += executeBatches(connection, INSERT_ADDRESS_SQL, inserts, (ps, row) -> {
+                Address address = (Address) row[0];
+                ps.setString(1, address.getCity());
+                ps.setString(2, address.getStreet());
+                ps.setString(3, address.getZipcode());
+                ps.setLong(4, memberId);
+                ps.setLong(5, (Long) row[1]);
+            });
+            return count;
+        });
+
+        detachMember(memberId);
+        return new CollectionDiff(added.size(), removed.size(), batches, System.nanoTime() - start);
+    }
+
+    private <T> int executeBatches(Connection connection, String sql, List<T> rows, Binder<T> binder)
+        throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int batches = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            Iterator<T> iterator = rows.iterator();
+            int pending = 0;
+            while (iterator.hasNext()) {
+                binder.bind(ps, iterator.next());
+                ps.addBatch();
+                if (++pending == batchSize || !iterator.hasNext()) {
+                    ps.executeBatch();
+                    batches++;
+                    pending = 0;
+                }
+            }
+        }
+        return batches;
+    }
+
+    private Long generateAddressId(Address address) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel()
+            .entityPersister(AddressEntity.class)
+            .getIdentifierGenerator();
+        Serializable id = generator.generate(session, new AddressEntity(address));
+        return (Long) id;
+    }
+
+    private void detachMember(Long memberId) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        Object member = session.getPersistenceContext().getEntity(session.generateEntityKey(memberId, persister));
+        if (member != null) {
+            em.detach(member);
+        }
+    }
+
+    private Session session() {
+        return em.unwrap(Session.class);
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+}
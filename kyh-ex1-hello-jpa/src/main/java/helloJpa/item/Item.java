@@ -1,11 +1,14 @@
 package helloJpa.item;
 
 import helloJpa.BaseEntity;
+import helloJpa.Sequences;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
+import javax.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -13,10 +16,14 @@ import lombok.Setter;
 @Setter
 @Entity
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@SequenceGenerator(
+    name = "ITEM_SEQ_GENERATOR",
+    sequenceName = "ITEM_SEQ",
+    allocationSize = Sequences.ALLOCATION_SIZE)
 public abstract class Item extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ITEM_SEQ_GENERATOR")
     private Long Id;
 
     private String name;